@@ -1,8 +1,28 @@
 import model.PassengerRecord;
+import processor.ApproximateProcessor;
+import processor.BatchRunner;
+import processor.CorrelationMatrix;
 import processor.DataProcessor;
+import processor.DurableDataset;
+import processor.Estimate;
+import processor.RecordView;
+import processor.SatisfactionModel;
+import processor.ScanStats;
+import processor.SegmentRanking;
+import processor.SlidingWindowAggregator;
+import processor.UpsertDataset;
+import util.BackgroundLoader;
 import util.CSVReader;
+import util.RecordExporter;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Scanner;
@@ -20,23 +40,39 @@ public class Main {
     private static Scanner scanner = new Scanner(System.in);
     private static DataProcessor processor;
     private static List<PassengerRecord> records;
+    private static BackgroundLoader loader;
+    private static ApproximateProcessor estimator = new ApproximateProcessor();
+    // Corrected surveys re-sent under the same ID replace the earlier row
+    private static UpsertDataset latest = new UpsertDataset(UpsertDataset.Mode.LAST_WRITER_WINS);
+    // The survey file is not in date order; a 30-day lateness bound still
+    // counts every record that falls inside the 30-day window
+    private static SlidingWindowAggregator trends = new SlidingWindowAggregator(30, 7, 30);
+    private static boolean complete;
     
     public static void main(String[] args) {
-        printHeader();
-        
-        if (!loadDataset()) {
-            System.out.println("  Failed to load dataset. Exiting.");
-            return;
+        if (args.length > 0 && args[0].equals("--batch")) {
+            System.exit(runBatch(args));
+        }
+        if (args.length > 0 && args[0].equals("--append")) {
+            System.exit(runAppend(args));
         }
+        printHeader();
         
-        processor = new DataProcessor(records);
-        System.out.println("  Loaded " + processor.getTotalRecords() + " records.\n");
+        // Ingest runs in the background; the menu is usable right away
+        loader = new BackgroundLoader(new CSVReader(CSV_FILE_PATH))
+            .onBatch(estimator::addAll)
+            .onBatch(latest::upsertAll)
+            .onBatch(trends::addAll)
+            .start();
+        System.out.println("  Loading " + CSV_FILE_PATH + " in the background.");
         
         boolean running = true;
         while (running) {
             showMenu();
             int choice = getIntInput("  Enter choice: ");
             
+            if (choice >= 1 && choice <= 7 && !refreshData()) continue;
+            
             if (choice == 1) showOverview();
             else if (choice == 2) showDemographics();
             else if (choice == 3) showFlightStats();
@@ -44,6 +80,7 @@ public class Main {
             else if (choice == 5) showSatisfactionAnalysis();
             else if (choice == 6) showSearchFilter();
             else if (choice == 7) showReport();
+            else if (choice == 8) waitForLoad();
             else if (choice == 0) {
                 running = false;
                 printBox("Goodbye! Thank you for using the system.", 40);
@@ -53,6 +90,128 @@ public class Main {
         scanner.close();
     }
     
+    /**
+     * Non-interactive mode: loads the dataset once and runs a file of
+     * queries (see BatchRunner), writing JSON results. The dataset is a
+     * CSV file or a store directory written by --append.
+     * Usage: --batch &lt;dataset&gt; &lt;queries file&gt; [--out results.json] [--threads n]
+     * @return process exit code
+     */
+    private static int runBatch(String[] args) {
+        if (args.length < 3) {
+            System.err.println("Usage: java Main --batch <dataset> <queries file> [--out results.json] [--threads n]");
+            return 2;
+        }
+        String out = null;
+        int threads = Runtime.getRuntime().availableProcessors();
+        for (int i = 3; i < args.length; i++) {
+            if (args[i].equals("--out") && i + 1 < args.length) out = args[++i];
+            else if (args[i].equals("--threads") && i + 1 < args.length && args[i + 1].matches("\\d+")) {
+                threads = Integer.parseInt(args[++i]);
+            } else {
+                System.err.println("Unknown option: " + args[i]);
+                return 2;
+            }
+        }
+        try {
+            List<String> queries = Files.readAllLines(Paths.get(args[2]), StandardCharsets.UTF_8);
+            long start = System.nanoTime();
+            Map<String, Object> header = new LinkedHashMap<>();
+            header.put("dataset", args[1]);
+            DataProcessor data;
+            if (Files.isDirectory(Paths.get(args[1]))) {
+                try (DurableDataset store = DurableDataset.open(Paths.get(args[1]))) {
+                    data = new DataProcessor(store.snapshot());
+                    header.put("records", store.size());
+                    header.put("replayedRows", store.getReplayedRows());
+                }
+            } else {
+                UpsertDataset upserted = UpsertDataset.load(new CSVReader(args[1]), UpsertDataset.Mode.LAST_WRITER_WINS);
+                data = new DataProcessor(upserted.getRecords());
+                header.put("records", upserted.size());
+                header.put("duplicatesReplaced", upserted.getDuplicateCount());
+            }
+            header.put("loadMillis", (System.nanoTime() - start) / 1e6);
+            String json = new BatchRunner(data, threads).run(queries, header);
+            if (out == null) {
+                System.out.print(json);
+            } else {
+                Files.write(Paths.get(out), json.getBytes(StandardCharsets.UTF_8));
+                System.err.println("Wrote results to " + out);
+            }
+            return 0;
+        } catch (IOException e) {
+            System.err.println("Error: " + e.getMessage());
+            return 1;
+        }
+    }
+    
+    /**
+     * Non-interactive mode: appends a CSV file to a durable store (see
+     * DurableDataset), one logged batch at a time, then summarizes the
+     * whole store. Opening the store first recovers any earlier run that
+     * was cut off, and records whose ID is already stored are skipped, so
+     * running the same file again resumes it without counting rows twice.
+     * Rows that do not fit the stored row layout are skipped as well.
+     * Usage: --append &lt;store directory&gt; &lt;csv file&gt;
+     * @return process exit code
+     */
+    private static int runAppend(String[] args) {
+        if (args.length != 3) {
+            System.err.println("Usage: java Main --append <store directory> <csv file>");
+            return 2;
+        }
+        Path dir = Paths.get(args[1]);
+        try (DurableDataset store = DurableDataset.open(dir)) {
+            System.out.printf("Opened %s: %d records, %d replayed from the log in %.1f ms\n", dir,
+                store.size(), store.getReplayedRows(), store.getRecoveryNanos() / 1e6);
+            int before = store.size();
+            long[] rejected = new long[1];
+            try {
+                new CSVReader(args[2]).forEachBatch(batch -> {
+                    try {
+                        appendBatch(store, batch, rejected);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            System.out.println("Appended " + (store.size() - before) + " records from " + args[2]
+                + (rejected[0] > 0 ? " (" + rejected[0] + " skipped)" : ""));
+            if (store.getDuplicateCount() > 0) {
+                System.out.println(store.getDuplicateCount() + " records were already stored under their ID");
+            }
+            
+            DataProcessor snapshot = new DataProcessor(store.snapshot());
+            System.out.println("Store now holds " + snapshot.getTotalRecords() + " records");
+            System.out.printf("Satisfaction rate: %.2f%%\n", store.getAggregates().getSatisfactionRate());
+            for (Map.Entry<String, Long> e : snapshot.getTravelClassDistribution().entrySet()) {
+                System.out.println("  " + e.getKey() + ": " + e.getValue());
+            }
+            return 0;
+        } catch (IOException e) {
+            System.err.println("Error: " + e.getMessage());
+            return 1;
+        }
+    }
+    
+    /** Appends a batch; if a record does not fit the row layout, appends the rest one by one. */
+    private static void appendBatch(DurableDataset store, List<PassengerRecord> batch, long[] rejected) throws IOException {
+        try {
+            store.append(batch);
+        } catch (IllegalArgumentException e) {
+            for (PassengerRecord r : batch) {
+                try {
+                    store.append(r);
+                } catch (IllegalArgumentException skipped) {
+                    rejected[0]++;
+                }
+            }
+        }
+    }
+    
     private static void printHeader() {
         System.out.println();
         System.out.println("+------------------------------------------+");
@@ -64,17 +223,65 @@ public class Main {
         System.out.println();
     }
     
-    private static boolean loadDataset() {
-        System.out.print("  Loading " + CSV_FILE_PATH + "... ");
-        try {
-            CSVReader reader = new CSVReader(CSV_FILE_PATH);
-            records = reader.readAllRecords();
-            System.out.println("Done.");
+    /**
+     * Points the processor at the rows loaded so far, one per passenger ID
+     * as in the full dataset. Once loading has finished the full dataset
+     * is used from then on.
+     * @return false if there is nothing to query yet
+     */
+    private static boolean refreshData() {
+        if (complete) return true;
+        if (loader.isDone()) {
+            records = latest.getRecords();
+            processor = new DataProcessor(records);
+            complete = true;
+            if (loader.getFailure() != null) {
+                System.out.println("  Error loading dataset: " + loader.getFailure().getMessage());
+                if (records.isEmpty()) {
+                    complete = false;
+                    return false;
+                }
+                System.out.println("  Continuing with the " + records.size() + " records read before the error.");
+            } else {
+                System.out.println("  Loaded " + processor.getTotalRecords() + " records.");
+                if (latest.getDuplicateCount() > 0) {
+                    System.out.println("  " + latest.getDuplicateCount() + " rows re-sent for "
+                        + latest.getDuplicatedIdCount() + " IDs replaced earlier versions.");
+                }
+            }
             return true;
-        } catch (IOException e) {
-            System.out.println("Error: " + e.getMessage());
+        }
+        records = latest.snapshot();
+        if (records.isEmpty()) {
+            System.out.println("  No records loaded yet. Try again shortly or choose [8] to wait.");
             return false;
         }
+        processor = new DataProcessor(records);
+        System.out.println("  [partial: " + loadStatus() + "] Results cover loaded rows only.");
+        return true;
+    }
+    
+    private static String loadStatus() {
+        double progress = loader.getProgress();
+        String rows = loader.getLoadedRows() + " records";
+        return progress < 0 ? rows + " loaded" : String.format("%.0f%% loaded, %s", progress * 100, rows);
+    }
+    
+    private static void waitForLoad() {
+        if (!loader.isDone()) {
+            System.out.print("  Waiting for " + loader.getFilePath() + "... ");
+            try {
+                loader.await();
+                System.out.println("Done.");
+            } catch (IOException e) {
+                System.out.println("Error: " + e.getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                System.out.println("Interrupted.");
+                return;
+            }
+        }
+        refreshData();
     }
     
     private static void showMenu() {
@@ -89,8 +296,14 @@ public class Main {
         System.out.println("|  [5]  Satisfaction Analysis      |");
         System.out.println("|  [6]  Search & Filter            |");
         System.out.println("|  [7]  Full Report                |");
+        if (!loader.isDone()) {
+            System.out.println("|  [8]  Wait for Full Load         |");
+        }
         System.out.println("|  [0]  Exit                       |");
         System.out.println("+----------------------------------+");
+        if (!loader.isDone()) {
+            System.out.println("  Loading: " + loadStatus());
+        }
     }
     
     private static void showOverview() {
@@ -170,6 +383,8 @@ public class Main {
             System.out.println("+----------------------------------+");
             System.out.println("|  [1]  All Service Ratings        |");
             System.out.println("|  [2]  Top & Bottom Services      |");
+            System.out.println("|  [3]  Rankings by Segment        |");
+            System.out.println("|  [4]  Satisfaction Drivers       |");
             System.out.println("|  [0]  Back to Main Menu          |");
             System.out.println("+----------------------------------+");
             
@@ -195,10 +410,49 @@ public class Main {
                 System.out.println("+--------------------------------------+");
                 pause();
             }
+            else if (c == 3) {
+                System.out.println();
+                System.out.println("+--------------------------------------+");
+                System.out.println("|      SERVICE RANKING BY SEGMENT      |");
+                System.out.println("+--------------------------------------+");
+                Map<String, SegmentRanking> rankings = processor.getSegmentServiceRankings(3);
+                for (SegmentRanking sr : rankings.values()) {
+                    System.out.println(sr);
+                }
+                System.out.println("+--------------------------------------+");
+                pause();
+            }
+            else if (c == 4) showCorrelations();
             else if (c == 0) sub = false;
         }
     }
     
+    private static void showCorrelations() {
+        CorrelationMatrix m = processor.getCorrelationMatrix(true);
+        int sat = m.indexOf("Satisfaction");
+        String[] labels = m.getLabels();
+        
+        // Order variables by correlation with satisfaction, strongest first
+        List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < labels.length; i++) {
+            if (i != sat) order.add(i);
+        }
+        order.sort((a, b) -> Double.compare(m.getCorrelation(b, sat), m.getCorrelation(a, sat)));
+        
+        System.out.println();
+        System.out.println("+--------------------------------------+");
+        System.out.println("|   CORRELATION WITH SATISFACTION      |");
+        System.out.println("+--------------------------------------+");
+        for (int i : order) {
+            System.out.printf("  %-22s : %+.3f\n", labels[i], m.getCorrelation(i, sat));
+        }
+        System.out.println("+--------------------------------------+");
+        System.out.println();
+        System.out.println("  Full correlation matrix:");
+        System.out.println(m);
+        pause();
+    }
+    
     private static void showSatisfactionAnalysis() {
         boolean sub = true;
         while (sub) {
@@ -211,6 +465,9 @@ public class Main {
             System.out.println("|  [3]  By Customer Type           |");
             System.out.println("|  [4]  By Travel Type             |");
             System.out.println("|  [5]  By Age Group               |");
+            System.out.println("|  [6]  Quick Estimates (Sampled)  |");
+            System.out.println("|  [7]  Satisfaction Model         |");
+            System.out.println("|  [8]  Rolling 7/30-Day Trends    |");
             System.out.println("|  [0]  Back to Main Menu          |");
             System.out.println("+----------------------------------+");
             
@@ -220,10 +477,98 @@ public class Main {
             else if (c == 3) showRates("By Customer Type", processor.getSatisfactionRateByCustomerType());
             else if (c == 4) showRates("By Travel Type", processor.getSatisfactionRateByTravelType());
             else if (c == 5) showRates("By Age Group", processor.getSatisfactionRateByAgeGroup());
+            else if (c == 6) showEstimates();
+            else if (c == 7) showModel();
+            else if (c == 8) showTrends();
             else if (c == 0) sub = false;
         }
     }
     
+    private static void showEstimates() {
+        ApproximateProcessor.Budget rates = ApproximateProcessor.Budget.maxError(0.01);
+        ApproximateProcessor.Budget minutes = ApproximateProcessor.Budget.maxError(0.5);
+        
+        System.out.println();
+        System.out.println("+----------------------------------------------+");
+        System.out.println("|   QUICK ESTIMATES (SAMPLED, 95% INTERVALS)   |");
+        System.out.println("+----------------------------------------------+");
+        System.out.println("  Records ingested   : " + estimator.getPopulationSize());
+        printEstimate("Satisfaction Rate", estimator.satisfactionRate(rates), true);
+        for (Map.Entry<String, Estimate> e : estimator.satisfactionRateBy(PassengerRecord::getTravelClass, rates).entrySet()) {
+            printEstimate("  " + e.getKey(), e.getValue(), true);
+        }
+        printEstimate("Avg Service Rating", estimator.mean(PassengerRecord::getAverageServiceRating, rates), false);
+        printEstimate("Avg Departure Delay", estimator.mean(PassengerRecord::getDepartureDelayInMinutes, minutes), false);
+        printEstimate("Avg Arrival Delay", estimator.mean(PassengerRecord::getArrivalDelayInMinutes, minutes), false);
+        System.out.println("+----------------------------------------------+");
+        pause();
+    }
+    
+    private static void showModel() {
+        int threads = Runtime.getRuntime().availableProcessors();
+        SatisfactionModel model;
+        try {
+            model = SatisfactionModel.train(processor::cursor, SatisfactionModel.DEFAULT_EPOCHS, threads, 42);
+        } catch (IllegalArgumentException e) {
+            System.out.println("  " + e.getMessage());
+            return;
+        }
+        SatisfactionModel.Evaluation eval = model.evaluate(processor::cursor, threads);
+        
+        System.out.println();
+        System.out.println("+----------------------------------------------+");
+        System.out.println("|   SATISFACTION MODEL (LOGISTIC REGRESSION)   |");
+        System.out.println("+----------------------------------------------+");
+        System.out.println("  Training Rows      : " + model.getTrainingRows() + " (" + model.getEpochs()
+            + " epochs, " + model.getThreads() + " threads)");
+        System.out.printf("  Training Time      : %.1f ms (%.0f rows/s)\n",
+            model.getTrainingNanos() / 1e6, model.getTrainingRowsPerSecond());
+        System.out.printf("  Held-out Accuracy  : %.2f%% (%d rows)\n",
+            model.getHoldoutAccuracy() * 100, model.getHoldoutRows());
+        System.out.printf("  Accuracy (all)     : %.2f%%\n", eval.getAccuracy() * 100);
+        System.out.printf("  Precision / Recall : %.2f%% / %.2f%%\n", eval.getPrecision() * 100, eval.getRecall() * 100);
+        System.out.printf("  Scoring Speed      : %.0f rows/s\n", eval.getRowsPerSecond());
+        System.out.println("  Strongest Factors  :");
+        List<Map.Entry<String, Double>> factors = new ArrayList<>(model.getCoefficients().entrySet());
+        factors.sort((a, b) -> Double.compare(Math.abs(b.getValue()), Math.abs(a.getValue())));
+        for (Map.Entry<String, Double> e : factors.subList(0, Math.min(5, factors.size()))) {
+            System.out.printf("    %-22s %+.3f\n", e.getKey(), e.getValue());
+        }
+        System.out.println("+----------------------------------------------+");
+        pause();
+    }
+    
+    private static void showTrends() {
+        System.out.println();
+        System.out.println("+----------------------------------------------+");
+        System.out.println("|        ROLLING SATISFACTION BY CLASS         |");
+        System.out.println("+----------------------------------------------+");
+        System.out.println("  Latest Survey Date : " + trends.getLatestDate());
+        System.out.println("  Late / Dropped     : " + trends.getLateCount() + " / " + trends.getDroppedCount());
+        for (int days : trends.getWindows()) {
+            System.out.println();
+            System.out.println("  Last " + days + " days:");
+            System.out.printf("    %-10s %8s %8s %8s %8s %7s\n", "Class", "Surveys", "Satisf.", "Dep.Dly", "Arr.Dly", "Rating");
+            Map<String, SlidingWindowAggregator.WindowStats> byClass = new LinkedHashMap<>(trends.getByClass(days));
+            byClass.put("All", trends.getOverall(days));
+            for (Map.Entry<String, SlidingWindowAggregator.WindowStats> e : byClass.entrySet()) {
+                SlidingWindowAggregator.WindowStats w = e.getValue();
+                System.out.printf("    %-10s %8d %7.1f%% %8.1f %8.1f %7.2f\n", e.getKey(), w.getCount(),
+                    w.getSatisfactionRate(), w.getAverageDepartureDelay(), w.getAverageArrivalDelay(),
+                    w.getAverageServiceRating());
+            }
+        }
+        System.out.println("+----------------------------------------------+");
+        pause();
+    }
+    
+    private static void printEstimate(String label, Estimate e, boolean percent) {
+        if (e.getSampleRows() == 0) return;
+        double scale = percent ? 100 : 1;
+        System.out.printf("  %-19s: %7.2f%s +/- %.2f  (%d sampled)\n", label, e.getValue() * scale,
+            percent ? "%" : " ", e.getMargin() * scale, e.getSampleRows());
+    }
+    
     private static void showSearchFilter() {
         boolean sub = true;
         while (sub) {
@@ -235,6 +580,7 @@ public class Main {
             System.out.println("|  [2]  Filter by Class            |");
             System.out.println("|  [3]  Filter by Age Range        |");
             System.out.println("|  [4]  View Sample Records        |");
+            System.out.println("|  [5]  Export Filtered Records    |");
             System.out.println("|  [0]  Back to Main Menu          |");
             System.out.println("+----------------------------------+");
             
@@ -243,6 +589,7 @@ public class Main {
             else if (c == 2) filterByClass();
             else if (c == 3) filterByAge();
             else if (c == 4) showSample();
+            else if (c == 5) exportFiltered();
             else if (c == 0) sub = false;
         }
     }
@@ -275,21 +622,28 @@ public class Main {
     private static void filterByClass() {
         System.out.print("  Enter class (Business/Eco/Eco Plus): ");
         String cls = scanner.nextLine().trim();
-        List<PassengerRecord> filtered = processor.filterByClass(cls);
+        RecordView filtered = processor.filterByClass(cls);
         
         System.out.println();
         System.out.println("+--------------------------------------+");
         System.out.println("|          FILTER BY CLASS             |");
         System.out.println("+--------------------------------------+");
         System.out.println("  Class         : " + cls);
-        System.out.println("  Records Found : " + filtered.size());
+        long found = filtered.count();
+        System.out.println("  Records Found : " + found);
+        ScanStats scan = filtered.getScanStats();
+        System.out.println("  Chunks Read   : " + scan.getScannedChunks() + " of " + scan.getTotalChunks());
         
-        if (filtered.size() > 0) {
+        if (found > 0) {
             int sat = 0;
             for (PassengerRecord r : filtered) {
                 if (r.isSatisfied()) sat++;
             }
-            System.out.println("  Satisfied     : " + sat + " (" + pct(sat, filtered.size()) + ")");
+            System.out.println("  Satisfied     : " + sat + " (" + pct(sat, found) + ")");
+            System.out.println("  Sample        :");
+            for (PassengerRecord r : filtered.limit(5)) {
+                System.out.println("    " + r);
+            }
         }
         System.out.println("+--------------------------------------+");
         pause();
@@ -298,21 +652,68 @@ public class Main {
     private static void filterByAge() {
         int min = getIntInput("  Enter minimum age: ");
         int max = getIntInput("  Enter maximum age: ");
-        List<PassengerRecord> filtered = processor.filterByAgeRange(min, max);
+        RecordView filtered = processor.filterByAgeRange(min, max);
         
         System.out.println();
         System.out.println("+--------------------------------------+");
         System.out.println("|         FILTER BY AGE RANGE          |");
         System.out.println("+--------------------------------------+");
         System.out.println("  Age Range     : " + min + " - " + max);
-        System.out.println("  Records Found : " + filtered.size());
+        long found = filtered.count();
+        System.out.println("  Records Found : " + found);
+        ScanStats scan = filtered.getScanStats();
+        System.out.println("  Chunks Read   : " + scan.getScannedChunks() + " of " + scan.getTotalChunks());
         
-        if (filtered.size() > 0) {
+        if (found > 0) {
             int sat = 0;
             for (PassengerRecord r : filtered) {
                 if (r.isSatisfied()) sat++;
             }
-            System.out.println("  Satisfied     : " + sat + " (" + pct(sat, filtered.size()) + ")");
+            System.out.println("  Satisfied     : " + sat + " (" + pct(sat, found) + ")");
+            System.out.println("  Sample        :");
+            for (PassengerRecord r : filtered.limit(5)) {
+                System.out.println("    " + r);
+            }
+        }
+        System.out.println("+--------------------------------------+");
+        pause();
+    }
+    
+    private static void exportFiltered() {
+        int f = getIntInput("  Filter by [1] Class or [2] Age Range: ");
+        RecordView filtered;
+        String label;
+        if (f == 1) {
+            System.out.print("  Enter class (Business/Eco/Eco Plus): ");
+            String cls = scanner.nextLine().trim();
+            filtered = processor.filterByClass(cls);
+            label = "Class " + cls;
+        } else if (f == 2) {
+            int min = getIntInput("  Enter minimum age: ");
+            int max = getIntInput("  Enter maximum age: ");
+            filtered = processor.filterByAgeRange(min, max);
+            label = "Age " + min + " - " + max;
+        } else {
+            System.out.println("  Invalid choice.");
+            return;
+        }
+        System.out.print("  Output file (.csv, .jsonl or .bin): ");
+        String file = scanner.nextLine().trim();
+        
+        System.out.println();
+        System.out.println("+--------------------------------------+");
+        System.out.println("|          EXPORT RECORDS              |");
+        System.out.println("+--------------------------------------+");
+        System.out.println("  Filter        : " + label);
+        try {
+            long start = System.nanoTime();
+            RecordExporter.Format format = RecordExporter.Format.fromFileName(file);
+            long written = RecordExporter.export(filtered, Paths.get(file), format);
+            System.out.println("  Records       : " + written);
+            System.out.println("  File          : " + file + " (" + format + ")");
+            System.out.printf("  Time          : %.1f ms\n", (System.nanoTime() - start) / 1e6);
+        } catch (IOException | IllegalArgumentException e) {
+            System.out.println("  Export failed: " + e.getMessage());
         }
         System.out.println("+--------------------------------------+");
         pause();
@@ -4,122 +4,277 @@ package model;
  * Model class for passenger satisfaction data.
  * Stores flight details, service ratings, and satisfaction level.
  * 
+ * The 14 service ratings, age and the five categorical fields are packed
+ * into a single long (see the bit layout below). Categorical values come
+ * from small fixed dictionaries; a value outside its dictionary is kept in
+ * a per-record overflow array so nothing is lost.
+ * 
  * @author IT221 Student
  * @version 1.0
  */
 public class PassengerRecord {
+
+    /** Number of service ratings per record. */
+    public static final int SERVICE_COUNT = 14;
+    
+    /** Highest allowed service rating. */
+    public static final int MAX_RATING = 5;
+    
+    /** Highest age that fits the packed age bits. */
+    public static final int MAX_AGE = 127;
+    
+    // Dictionaries for the categorical fields; code = index + 1
+    public static final String[] GENDERS = {"Female", "Male"};
+    public static final String[] CUSTOMER_TYPES = {"Loyal Customer", "disloyal Customer"};
+    public static final String[] TRAVEL_TYPES = {"Business travel", "Personal Travel"};
+    public static final String[] TRAVEL_CLASSES = {"Business", "Eco", "Eco Plus"};
+    public static final String[] SATISFACTIONS = {"neutral or dissatisfied", "satisfied"};
+    
+    /** Categorical code for a null value. */
+    public static final int CODE_NULL = 0;
+    /** Categorical code for a value outside the dictionary. */
+    public static final int CODE_OVERFLOW = 7;
+    
+    // Packed layout of 'bits':
+    //   0-41  service ratings, 3 bits each (rating i at bit 3 * i)
+    //  42-48  age (7 bits)
+    //  49-51  gender code
+    //  52-54  customer type code
+    //  55-57  type of travel code
+    //  58-60  travel class code
+    //  61-63  satisfaction code
+    private static final int RATING_BITS = 3;
+    private static final long RATING_MASK = 0x7L;
+    private static final int AGE_SHIFT = 42;
+    private static final long AGE_MASK = 0x7FL;
+    private static final int GENDER_SHIFT = 49;
+    private static final int CUSTOMER_TYPE_SHIFT = 52;
+    private static final int TRAVEL_TYPE_SHIFT = 55;
+    private static final int CLASS_SHIFT = 58;
+    private static final int SATISFACTION_SHIFT = 61;
+    private static final long CODE_MASK = 0x7L;
+    static final int SATISFIED_CODE = 2;
+    
+    // Bit k of every rating, for summing all ratings with three popcounts
+    private static final long RATING_PLANE_0;
+    private static final long RATING_PLANE_1;
+    private static final long RATING_PLANE_2;
+    
+    static {
+        long plane = 0;
+        for (int i = 0; i < SERVICE_COUNT; i++) {
+            plane |= 1L << (RATING_BITS * i);
+        }
+        RATING_PLANE_0 = plane;
+        RATING_PLANE_1 = plane << 1;
+        RATING_PLANE_2 = plane << 2;
+    }
+    
+    // Overflow slots, one per categorical field
+    private static final int SLOT_GENDER = 0;
+    private static final int SLOT_CUSTOMER_TYPE = 1;
+    private static final int SLOT_TRAVEL_TYPE = 2;
+    private static final int SLOT_CLASS = 3;
+    private static final int SLOT_SATISFACTION = 4;
     
     // Identification
     private String id;
     
-    // Demographics
-    private String gender;
-    private String customerType;
-    private int age;
-    
     // Travel Info
-    private String typeOfTravel;
-    private String travelClass;
     private int flightDistance;
     private String date;
     
-    // Service Ratings (0-5 scale)
-    private int inflightWifiService;
-    private int departureArrivalTimeConvenient;
-    private int easeOfOnlineBooking;
-    private int gateLocation;
-    private int foodAndDrink;
-    private int onlineBoarding;
-    private int seatComfort;
-    private int inflightEntertainment;
-    private int onBoardService;
-    private int legRoomService;
-    private int baggageHandling;
-    private int checkinService;
-    private int inflightService;
-    private int cleanliness;
+    // Ratings, age and categorical codes
+    private long bits;
+    
+    // Categorical values outside their dictionary, allocated on demand
+    private String[] overflow;
     
     // Delays
     private double departureDelayInMinutes;
     private double arrivalDelayInMinutes;
     
-    // Outcome
-    private String satisfaction;
-    
     /** Default constructor. */
     public PassengerRecord() {}
     
     // Getters
     public String getId() { return id; }
-    public String getGender() { return gender; }
-    public String getCustomerType() { return customerType; }
-    public int getAge() { return age; }
-    public String getTypeOfTravel() { return typeOfTravel; }
-    public String getTravelClass() { return travelClass; }
+    public String getGender() { return decode(GENDERS, GENDER_SHIFT, SLOT_GENDER); }
+    public String getCustomerType() { return decode(CUSTOMER_TYPES, CUSTOMER_TYPE_SHIFT, SLOT_CUSTOMER_TYPE); }
+    public int getAge() { return (int) ((bits >>> AGE_SHIFT) & AGE_MASK); }
+    public String getTypeOfTravel() { return decode(TRAVEL_TYPES, TRAVEL_TYPE_SHIFT, SLOT_TRAVEL_TYPE); }
+    public String getTravelClass() { return decode(TRAVEL_CLASSES, CLASS_SHIFT, SLOT_CLASS); }
     public int getFlightDistance() { return flightDistance; }
     public String getDate() { return date; }
-    public int getInflightWifiService() { return inflightWifiService; }
-    public int getDepartureArrivalTimeConvenient() { return departureArrivalTimeConvenient; }
-    public int getEaseOfOnlineBooking() { return easeOfOnlineBooking; }
-    public int getGateLocation() { return gateLocation; }
-    public int getFoodAndDrink() { return foodAndDrink; }
-    public int getOnlineBoarding() { return onlineBoarding; }
-    public int getSeatComfort() { return seatComfort; }
-    public int getInflightEntertainment() { return inflightEntertainment; }
-    public int getOnBoardService() { return onBoardService; }
-    public int getLegRoomService() { return legRoomService; }
-    public int getBaggageHandling() { return baggageHandling; }
-    public int getCheckinService() { return checkinService; }
-    public int getInflightService() { return inflightService; }
-    public int getCleanliness() { return cleanliness; }
+    public int getInflightWifiService() { return getServiceRating(0); }
+    public int getDepartureArrivalTimeConvenient() { return getServiceRating(1); }
+    public int getEaseOfOnlineBooking() { return getServiceRating(2); }
+    public int getGateLocation() { return getServiceRating(3); }
+    public int getFoodAndDrink() { return getServiceRating(4); }
+    public int getOnlineBoarding() { return getServiceRating(5); }
+    public int getSeatComfort() { return getServiceRating(6); }
+    public int getInflightEntertainment() { return getServiceRating(7); }
+    public int getOnBoardService() { return getServiceRating(8); }
+    public int getLegRoomService() { return getServiceRating(9); }
+    public int getBaggageHandling() { return getServiceRating(10); }
+    public int getCheckinService() { return getServiceRating(11); }
+    public int getInflightService() { return getServiceRating(12); }
+    public int getCleanliness() { return getServiceRating(13); }
     public double getDepartureDelayInMinutes() { return departureDelayInMinutes; }
     public double getArrivalDelayInMinutes() { return arrivalDelayInMinutes; }
-    public String getSatisfaction() { return satisfaction; }
+    public String getSatisfaction() { return decode(SATISFACTIONS, SATISFACTION_SHIFT, SLOT_SATISFACTION); }
     
     // Setters
     public void setId(String id) { this.id = id; }
-    public void setGender(String gender) { this.gender = gender; }
-    public void setCustomerType(String customerType) { this.customerType = customerType; }
-    public void setAge(int age) { this.age = age; }
-    public void setTypeOfTravel(String typeOfTravel) { this.typeOfTravel = typeOfTravel; }
-    public void setTravelClass(String travelClass) { this.travelClass = travelClass; }
+    public void setGender(String gender) { encode(GENDERS, GENDER_SHIFT, SLOT_GENDER, gender); }
+    public void setCustomerType(String customerType) { encode(CUSTOMER_TYPES, CUSTOMER_TYPE_SHIFT, SLOT_CUSTOMER_TYPE, customerType); }
+    public void setTypeOfTravel(String typeOfTravel) { encode(TRAVEL_TYPES, TRAVEL_TYPE_SHIFT, SLOT_TRAVEL_TYPE, typeOfTravel); }
+    public void setTravelClass(String travelClass) { encode(TRAVEL_CLASSES, CLASS_SHIFT, SLOT_CLASS, travelClass); }
     public void setFlightDistance(int flightDistance) { this.flightDistance = flightDistance; }
     public void setDate(String date) { this.date = date; }
-    public void setInflightWifiService(int inflightWifiService) { this.inflightWifiService = inflightWifiService; }
-    public void setDepartureArrivalTimeConvenient(int departureArrivalTimeConvenient) { this.departureArrivalTimeConvenient = departureArrivalTimeConvenient; }
-    public void setEaseOfOnlineBooking(int easeOfOnlineBooking) { this.easeOfOnlineBooking = easeOfOnlineBooking; }
-    public void setGateLocation(int gateLocation) { this.gateLocation = gateLocation; }
-    public void setFoodAndDrink(int foodAndDrink) { this.foodAndDrink = foodAndDrink; }
-    public void setOnlineBoarding(int onlineBoarding) { this.onlineBoarding = onlineBoarding; }
-    public void setSeatComfort(int seatComfort) { this.seatComfort = seatComfort; }
-    public void setInflightEntertainment(int inflightEntertainment) { this.inflightEntertainment = inflightEntertainment; }
-    public void setOnBoardService(int onBoardService) { this.onBoardService = onBoardService; }
-    public void setLegRoomService(int legRoomService) { this.legRoomService = legRoomService; }
-    public void setBaggageHandling(int baggageHandling) { this.baggageHandling = baggageHandling; }
-    public void setCheckinService(int checkinService) { this.checkinService = checkinService; }
-    public void setInflightService(int inflightService) { this.inflightService = inflightService; }
-    public void setCleanliness(int cleanliness) { this.cleanliness = cleanliness; }
+    public void setInflightWifiService(int inflightWifiService) { setServiceRating(0, inflightWifiService); }
+    public void setDepartureArrivalTimeConvenient(int departureArrivalTimeConvenient) { setServiceRating(1, departureArrivalTimeConvenient); }
+    public void setEaseOfOnlineBooking(int easeOfOnlineBooking) { setServiceRating(2, easeOfOnlineBooking); }
+    public void setGateLocation(int gateLocation) { setServiceRating(3, gateLocation); }
+    public void setFoodAndDrink(int foodAndDrink) { setServiceRating(4, foodAndDrink); }
+    public void setOnlineBoarding(int onlineBoarding) { setServiceRating(5, onlineBoarding); }
+    public void setSeatComfort(int seatComfort) { setServiceRating(6, seatComfort); }
+    public void setInflightEntertainment(int inflightEntertainment) { setServiceRating(7, inflightEntertainment); }
+    public void setOnBoardService(int onBoardService) { setServiceRating(8, onBoardService); }
+    public void setLegRoomService(int legRoomService) { setServiceRating(9, legRoomService); }
+    public void setBaggageHandling(int baggageHandling) { setServiceRating(10, baggageHandling); }
+    public void setCheckinService(int checkinService) { setServiceRating(11, checkinService); }
+    public void setInflightService(int inflightService) { setServiceRating(12, inflightService); }
+    public void setCleanliness(int cleanliness) { setServiceRating(13, cleanliness); }
     public void setDepartureDelayInMinutes(double departureDelayInMinutes) { this.departureDelayInMinutes = departureDelayInMinutes; }
     public void setArrivalDelayInMinutes(double arrivalDelayInMinutes) { this.arrivalDelayInMinutes = arrivalDelayInMinutes; }
-    public void setSatisfaction(String satisfaction) { this.satisfaction = satisfaction; }
+    public void setSatisfaction(String satisfaction) { encode(SATISFACTIONS, SATISFACTION_SHIFT, SLOT_SATISFACTION, satisfaction); }
+    
+    /**
+     * @param age passenger age, 0 to MAX_AGE
+     * @throws IllegalArgumentException if the age does not fit the packed bits
+     */
+    public void setAge(int age) {
+        if (age < 0 || age > MAX_AGE) {
+            throw new IllegalArgumentException("Age out of range: " + age);
+        }
+        bits = (bits & ~(AGE_MASK << AGE_SHIFT)) | ((long) age << AGE_SHIFT);
+    }
+    
+    /**
+     * Returns a service rating by position, in CSV column order
+     * (0 = inflight wifi ... 13 = cleanliness).
+     * @param index rating index, 0 to SERVICE_COUNT - 1
+     * @return rating value (0-5)
+     */
+    public int getServiceRating(int index) {
+        checkServiceIndex(index);
+        return ratingOf(bits, index);
+    }
+    
+    /**
+     * @param index rating index, 0 to SERVICE_COUNT - 1
+     * @param rating rating value, 0 to MAX_RATING
+     * @throws IllegalArgumentException if the rating is out of range
+     */
+    public void setServiceRating(int index, int rating) {
+        checkServiceIndex(index);
+        if (rating < 0 || rating > MAX_RATING) {
+            throw new IllegalArgumentException("Rating out of range: " + rating);
+        }
+        int shift = RATING_BITS * index;
+        bits = (bits & ~(RATING_MASK << shift)) | ((long) rating << shift);
+    }
+    
+    /** @return packed ratings, age and categorical codes (layout above) */
+    public long getPackedBits() { return bits; }
+    
+    /** Restores packed bits written by RowLayout; never carries overflow values. */
+    void setPackedBits(long packed) {
+        bits = packed;
+        overflow = null;
+    }
+    
+    /** @return true if any categorical value is outside its dictionary */
+    public boolean hasOverflow() {
+        if (overflow == null) return false;
+        for (String v : overflow) {
+            if (v != null) return true;
+        }
+        return false;
+    }
+    
+    /** @return rating at index from packed bits */
+    public static int ratingOf(long packed, int index) {
+        return (int) ((packed >>> (RATING_BITS * index)) & RATING_MASK);
+    }
+    
+    /** @return sum of all 14 ratings in packed bits, using one popcount per bit plane */
+    public static int ratingSumOf(long packed) {
+        return Long.bitCount(packed & RATING_PLANE_0)
+             + (Long.bitCount(packed & RATING_PLANE_1) << 1)
+             + (Long.bitCount(packed & RATING_PLANE_2) << 2);
+    }
+    
+    /** @return age from packed bits */
+    public static int ageOf(long packed) { return (int) ((packed >>> AGE_SHIFT) & AGE_MASK); }
+    
+    // Categorical codes from packed bits: CODE_NULL, dictionary index + 1, or CODE_OVERFLOW
+    public static int genderCodeOf(long packed) { return (int) ((packed >>> GENDER_SHIFT) & CODE_MASK); }
+    public static int customerTypeCodeOf(long packed) { return (int) ((packed >>> CUSTOMER_TYPE_SHIFT) & CODE_MASK); }
+    public static int travelTypeCodeOf(long packed) { return (int) ((packed >>> TRAVEL_TYPE_SHIFT) & CODE_MASK); }
+    public static int travelClassCodeOf(long packed) { return (int) ((packed >>> CLASS_SHIFT) & CODE_MASK); }
+    public static int satisfactionCodeOf(long packed) { return (int) ((packed >>> SATISFACTION_SHIFT) & CODE_MASK); }
     
     /** @return true if passenger is satisfied */
     public boolean isSatisfied() {
-        return "satisfied".equalsIgnoreCase(satisfaction);
+        int code = satisfactionCodeOf(bits);
+        if (code == CODE_OVERFLOW) {
+            return "satisfied".equalsIgnoreCase(overflow[SLOT_SATISFACTION]);
+        }
+        return code == SATISFIED_CODE;
     }
     
     /** @return average of all 14 service ratings */
     public double getAverageServiceRating() {
-        int total = inflightWifiService + departureArrivalTimeConvenient 
-                  + easeOfOnlineBooking + gateLocation + foodAndDrink 
-                  + onlineBoarding + seatComfort + inflightEntertainment 
-                  + onBoardService + legRoomService + baggageHandling 
-                  + checkinService + inflightService + cleanliness;
-        return total / 14.0;
+        return ratingSumOf(bits) / 14.0;
+    }
+    
+    private String decode(String[] dictionary, int shift, int slot) {
+        int code = (int) ((bits >>> shift) & CODE_MASK);
+        if (code == CODE_NULL) return null;
+        if (code == CODE_OVERFLOW) return overflow[slot];
+        return dictionary[code - 1];
+    }
+    
+    private void encode(String[] dictionary, int shift, int slot, String value) {
+        long code = CODE_NULL;
+        if (value != null) {
+            code = CODE_OVERFLOW;
+            for (int i = 0; i < dictionary.length; i++) {
+                if (dictionary[i].equals(value)) {
+                    code = i + 1;
+                    break;
+                }
+            }
+        }
+        if (code == CODE_OVERFLOW) {
+            if (overflow == null) overflow = new String[5];
+            overflow[slot] = value;
+        } else if (overflow != null) {
+            overflow[slot] = null;
+        }
+        bits = (bits & ~(CODE_MASK << shift)) | (code << shift);
+    }
+    
+    private static void checkServiceIndex(int index) {
+        if (index < 0 || index >= SERVICE_COUNT) {
+            throw new IndexOutOfBoundsException("Service index: " + index);
+        }
     }
     
     @Override
     public String toString() {
-        return "ID=" + id + ", " + gender + ", Age=" + age + ", " + travelClass + ", " + satisfaction;
+        return "ID=" + id + ", " + getGender() + ", Age=" + getAge() + ", " + getTravelClass() + ", " + getSatisfaction();
     }
 }
@@ -0,0 +1,299 @@
+package model;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * Reusable view of one row at a time, with the same getters as
+ * PassengerRecord. A cursor is moved over the rows instead of creating a
+ * record per row, so scans allocate nothing; toRecord() materializes the
+ * current row when a caller needs to keep it.
+ * <pre>
+ * RecordCursor c = RecordCursor.over(records);
+ * while (c.next()) {
+ *     if (c.isSatisfied()) satisfied++;
+ * }
+ * </pre>
+ * Over RowLayout buffers, categorical getters return the dictionary
+ * Strings; only getId(), getDate() and toRecord() allocate.
+ * A cursor is not thread-safe; use one per thread.
+ *
+ * @author IT221 Student
+ * @version 1.0
+ */
+public abstract class RecordCursor {
+
+    private final int size;
+    private int position = -1;
+
+    RecordCursor(int size) {
+        this.size = size;
+    }
+
+    /** @return cursor over heap records; the list must not change while in use */
+    public static RecordCursor over(List<PassengerRecord> records) {
+        return new HeapCursor(records);
+    }
+
+    /**
+     * @param buffers RowLayout rows, rowsPerBuffer to a buffer (the last may be partly used)
+     * @param rowsPerBuffer rows in each full buffer
+     * @param size total number of rows
+     * @return cursor over the rows
+     */
+    public static RecordCursor over(List<ByteBuffer> buffers, int rowsPerBuffer, int size) {
+        return new BufferCursor(buffers, rowsPerBuffer, size);
+    }
+
+    /**
+     * Advances to the next row; a new cursor starts before the first row.
+     * @return false once past the last row
+     */
+    public boolean next() {
+        if (position + 1 >= size) {
+            position = size;
+            return false;
+        }
+        position++;
+        advance(position);
+        return true;
+    }
+
+    /**
+     * Positions the cursor at a row.
+     * @return this cursor
+     */
+    public RecordCursor moveTo(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Row " + row + " of " + size);
+        }
+        position = row;
+        seek(row);
+        return this;
+    }
+
+    /** @return current row index */
+    public int getPosition() {
+        return position;
+    }
+
+    /** @return number of rows */
+    public int size() {
+        return size;
+    }
+
+    /** Moves to the row after the current one. */
+    abstract void advance(int row);
+
+    /** Moves to any row. */
+    abstract void seek(int row);
+
+    /** @return current row as a record: the stored object for heap rows, a new copy for buffer rows */
+    public abstract PassengerRecord toRecord();
+
+    /** @return packed ratings, age and categorical codes (see PassengerRecord) */
+    public abstract long getPackedBits();
+
+    public abstract String getId();
+    public abstract String getGender();
+    public abstract String getCustomerType();
+    public abstract String getTypeOfTravel();
+    public abstract String getTravelClass();
+    public abstract int getFlightDistance();
+    public abstract String getDate();
+    public abstract double getDepartureDelayInMinutes();
+    public abstract double getArrivalDelayInMinutes();
+    public abstract String getSatisfaction();
+    public abstract boolean isSatisfied();
+
+    /**
+     * Survey date without creating a String. Buffer cursors return the
+     * same reused CharSequence on every call; read it before moving.
+     * @return date text, or null
+     */
+    public abstract CharSequence getDateChars();
+
+    /** @return true if the ID equals the given one ignoring case, compared without allocating */
+    public abstract boolean idEqualsIgnoreCase(String id);
+
+    public int getAge() { return PassengerRecord.ageOf(getPackedBits()); }
+    public int getInflightWifiService() { return getServiceRating(0); }
+    public int getDepartureArrivalTimeConvenient() { return getServiceRating(1); }
+    public int getEaseOfOnlineBooking() { return getServiceRating(2); }
+    public int getGateLocation() { return getServiceRating(3); }
+    public int getFoodAndDrink() { return getServiceRating(4); }
+    public int getOnlineBoarding() { return getServiceRating(5); }
+    public int getSeatComfort() { return getServiceRating(6); }
+    public int getInflightEntertainment() { return getServiceRating(7); }
+    public int getOnBoardService() { return getServiceRating(8); }
+    public int getLegRoomService() { return getServiceRating(9); }
+    public int getBaggageHandling() { return getServiceRating(10); }
+    public int getCheckinService() { return getServiceRating(11); }
+    public int getInflightService() { return getServiceRating(12); }
+    public int getCleanliness() { return getServiceRating(13); }
+
+    /** @return rating at index, 0 to SERVICE_COUNT - 1 */
+    public int getServiceRating(int index) {
+        if (index < 0 || index >= PassengerRecord.SERVICE_COUNT) {
+            throw new IndexOutOfBoundsException("Service index: " + index);
+        }
+        return PassengerRecord.ratingOf(getPackedBits(), index);
+    }
+
+    /** @return average of all 14 service ratings */
+    public double getAverageServiceRating() {
+        return PassengerRecord.ratingSumOf(getPackedBits()) / 14.0;
+    }
+
+    /** Cursor over PassengerRecord objects; getters delegate to the current one. */
+    private static final class HeapCursor extends RecordCursor {
+        private final List<PassengerRecord> records;
+        private PassengerRecord current;
+
+        HeapCursor(List<PassengerRecord> records) {
+            super(records.size());
+            this.records = records;
+        }
+
+        @Override void advance(int row) { current = records.get(row); }
+        @Override void seek(int row) { current = records.get(row); }
+        @Override public PassengerRecord toRecord() { return current; }
+        @Override public long getPackedBits() { return current.getPackedBits(); }
+        @Override public String getId() { return current.getId(); }
+        @Override public String getGender() { return current.getGender(); }
+        @Override public String getCustomerType() { return current.getCustomerType(); }
+        @Override public String getTypeOfTravel() { return current.getTypeOfTravel(); }
+        @Override public String getTravelClass() { return current.getTravelClass(); }
+        @Override public int getFlightDistance() { return current.getFlightDistance(); }
+        @Override public String getDate() { return current.getDate(); }
+        @Override public CharSequence getDateChars() { return current.getDate(); }
+        @Override public double getDepartureDelayInMinutes() { return current.getDepartureDelayInMinutes(); }
+        @Override public double getArrivalDelayInMinutes() { return current.getArrivalDelayInMinutes(); }
+        @Override public String getSatisfaction() { return current.getSatisfaction(); }
+        @Override public boolean isSatisfied() { return current.isSatisfied(); }
+
+        @Override
+        public boolean idEqualsIgnoreCase(String id) {
+            return current.getId() != null && current.getId().equalsIgnoreCase(id);
+        }
+    }
+
+    /** Cursor over RowLayout rows; getters read the buffer at the current offset. */
+    private static final class BufferCursor extends RecordCursor {
+        private final List<ByteBuffer> buffers;
+        private final int rowsPerBuffer;
+        private final AsciiChars date = new AsciiChars();
+        private ByteBuffer buf;
+        private int offset;
+
+        BufferCursor(List<ByteBuffer> buffers, int rowsPerBuffer, int size) {
+            super(size);
+            this.buffers = buffers;
+            this.rowsPerBuffer = rowsPerBuffer;
+        }
+
+        @Override
+        void advance(int row) {
+            int inBuffer = row % rowsPerBuffer;
+            if (inBuffer == 0 || buf == null) {
+                seek(row);
+            } else {
+                offset = inBuffer * RowLayout.ROW_SIZE;
+            }
+        }
+
+        @Override
+        void seek(int row) {
+            buf = buffers.get(row / rowsPerBuffer);
+            offset = (row % rowsPerBuffer) * RowLayout.ROW_SIZE;
+        }
+
+        @Override public PassengerRecord toRecord() { return RowLayout.read(buf, offset); }
+        @Override public long getPackedBits() { return RowLayout.bitsAt(buf, offset); }
+        @Override public String getId() { return RowLayout.idAt(buf, offset); }
+        @Override public int getFlightDistance() { return RowLayout.distanceAt(buf, offset); }
+        @Override public String getDate() { return RowLayout.dateAt(buf, offset); }
+        @Override public double getDepartureDelayInMinutes() { return RowLayout.departureDelayAt(buf, offset); }
+        @Override public double getArrivalDelayInMinutes() { return RowLayout.arrivalDelayAt(buf, offset); }
+
+        // RowLayout rows never hold overflow values, so codes map straight to the dictionaries
+        @Override public String getGender() { return decode(PassengerRecord.GENDERS, PassengerRecord.genderCodeOf(getPackedBits())); }
+        @Override public String getCustomerType() { return decode(PassengerRecord.CUSTOMER_TYPES, PassengerRecord.customerTypeCodeOf(getPackedBits())); }
+        @Override public String getTypeOfTravel() { return decode(PassengerRecord.TRAVEL_TYPES, PassengerRecord.travelTypeCodeOf(getPackedBits())); }
+        @Override public String getTravelClass() { return decode(PassengerRecord.TRAVEL_CLASSES, PassengerRecord.travelClassCodeOf(getPackedBits())); }
+        @Override public String getSatisfaction() { return decode(PassengerRecord.SATISFACTIONS, PassengerRecord.satisfactionCodeOf(getPackedBits())); }
+
+        @Override
+        public boolean isSatisfied() {
+            return PassengerRecord.satisfactionCodeOf(getPackedBits()) == PassengerRecord.SATISFIED_CODE;
+        }
+
+        @Override
+        public CharSequence getDateChars() {
+            int start = offset + RowLayout.DATE_OFFSET;
+            int len = RowLayout.asciiLength(buf, start);
+            if (len < 0) return null;
+            date.set(buf, start + 1, len);
+            return date;
+        }
+
+        @Override
+        public boolean idEqualsIgnoreCase(String id) {
+            int start = offset + RowLayout.ID_OFFSET;
+            int len = RowLayout.asciiLength(buf, start);
+            if (id == null || len != id.length()) return false;
+            for (int i = 0; i < len; i++) {
+                char a = (char) buf.get(start + 1 + i);
+                char b = id.charAt(i);
+                // Same per-char test as String.equalsIgnoreCase
+                if (a != b && Character.toUpperCase(a) != Character.toUpperCase(b)
+                        && Character.toLowerCase(a) != Character.toLowerCase(b)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static String decode(String[] dictionary, int code) {
+            return code == PassengerRecord.CODE_NULL ? null : dictionary[code - 1];
+        }
+    }
+
+    /** ASCII bytes in a buffer seen as characters. */
+    private static final class AsciiChars implements CharSequence {
+        private ByteBuffer buf;
+        private int start;
+        private int length;
+
+        void set(ByteBuffer buf, int start, int length) {
+            this.buf = buf;
+            this.start = start;
+            this.length = length;
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            if (index < 0 || index >= length) throw new IndexOutOfBoundsException("Index: " + index);
+            return (char) buf.get(start + index);
+        }
+
+        @Override
+        public CharSequence subSequence(int from, int to) {
+            return toString().subSequence(from, to);
+        }
+
+        @Override
+        public String toString() {
+            char[] chars = new char[length];
+            for (int i = 0; i < length; i++) {
+                chars[i] = (char) buf.get(start + i);
+            }
+            return new String(chars);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package model;
+
+/**
+ * Fields of a PassengerRecord, in CSV column order.
+ * Each field knows its CSV header, value type and getter name.
+ * 
+ * @author IT221 Student
+ * @version 1.0
+ */
+public enum RecordField {
+    
+    ID("id", Type.STRING, "getId"),
+    GENDER("Gender", Type.STRING, "getGender"),
+    CUSTOMER_TYPE("Customer Type", Type.STRING, "getCustomerType"),
+    AGE("Age", Type.INT, "getAge"),
+    TYPE_OF_TRAVEL("Type of Travel", Type.STRING, "getTypeOfTravel"),
+    TRAVEL_CLASS("Class", Type.STRING, "getTravelClass"),
+    FLIGHT_DISTANCE("Flight Distance", Type.INT, "getFlightDistance"),
+    INFLIGHT_WIFI_SERVICE("Inflight wifi service", Type.INT, "getInflightWifiService"),
+    DEPARTURE_ARRIVAL_TIME_CONVENIENT("Departure/Arrival time convenient", Type.INT, "getDepartureArrivalTimeConvenient"),
+    EASE_OF_ONLINE_BOOKING("Ease of Online booking", Type.INT, "getEaseOfOnlineBooking"),
+    GATE_LOCATION("Gate location", Type.INT, "getGateLocation"),
+    FOOD_AND_DRINK("Food and drink", Type.INT, "getFoodAndDrink"),
+    ONLINE_BOARDING("Online boarding", Type.INT, "getOnlineBoarding"),
+    SEAT_COMFORT("Seat comfort", Type.INT, "getSeatComfort"),
+    INFLIGHT_ENTERTAINMENT("Inflight entertainment", Type.INT, "getInflightEntertainment"),
+    ON_BOARD_SERVICE("On-board service", Type.INT, "getOnBoardService"),
+    LEG_ROOM_SERVICE("Leg room service", Type.INT, "getLegRoomService"),
+    BAGGAGE_HANDLING("Baggage handling", Type.INT, "getBaggageHandling"),
+    CHECKIN_SERVICE("Checkin service", Type.INT, "getCheckinService"),
+    INFLIGHT_SERVICE("Inflight service", Type.INT, "getInflightService"),
+    CLEANLINESS("Cleanliness", Type.INT, "getCleanliness"),
+    DEPARTURE_DELAY("Departure Delay in Minutes", Type.DOUBLE, "getDepartureDelayInMinutes"),
+    ARRIVAL_DELAY("Arrival Delay in Minutes", Type.DOUBLE, "getArrivalDelayInMinutes"),
+    SATISFACTION("satisfaction", Type.STRING, "getSatisfaction"),
+    DATE("Date", Type.STRING, "getDate");
+    
+    /** Value type of a field. */
+    public enum Type { STRING, INT, DOUBLE }
+    
+    private final String header;
+    private final Type type;
+    private final String getterName;
+    
+    RecordField(String header, Type type, String getterName) {
+        this.header = header;
+        this.type = type;
+        this.getterName = getterName;
+    }
+    
+    /** @return CSV header name */
+    public String getHeader() { return header; }
+    public Type getType() { return type; }
+    public String getGetterName() { return getterName; }
+    
+    /** @return true for INT and DOUBLE fields */
+    public boolean isNumeric() { return type != Type.STRING; }
+    
+    /**
+     * @param header CSV header name; case and surrounding spaces are ignored
+     * @return matching field, or null if none
+     */
+    public static RecordField fromHeader(String header) {
+        String name = header.trim();
+        for (RecordField f : values()) {
+            if (f.header.equalsIgnoreCase(name)) return f;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,127 @@
+package model;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Fixed-width binary layout of one PassengerRecord (56 bytes).
+ * 
+ * <pre>
+ *  offset size field
+ *   0      8   packed ratings, age and category codes
+ *   8      4   flight distance
+ *  12      8   departure delay
+ *  20      8   arrival delay
+ *  28     16   id   (1 length byte, 0xFF = null, then ASCII)
+ *  44     12   date (1 length byte, 0xFF = null, then ASCII)
+ * </pre>
+ * 
+ * Values that do not fit (category values outside the dictionaries,
+ * longer or non-ASCII ids and dates) are rejected.
+ * 
+ * @author IT221 Student
+ * @version 1.0
+ */
+public final class RowLayout {
+    
+    public static final int BITS_OFFSET = 0;
+    public static final int DISTANCE_OFFSET = 8;
+    public static final int DEPARTURE_DELAY_OFFSET = 12;
+    public static final int ARRIVAL_DELAY_OFFSET = 20;
+    public static final int ID_OFFSET = 28;
+    public static final int ID_WIDTH = 16;
+    public static final int DATE_OFFSET = 44;
+    public static final int DATE_WIDTH = 12;
+    
+    /** Bytes per row. */
+    public static final int ROW_SIZE = 56;
+    
+    private static final int NULL_LENGTH = 0xFF;
+    
+    private RowLayout() {}
+    
+    /**
+     * Writes a record at an absolute offset; the buffer position is unchanged.
+     * @throws IllegalArgumentException if the record does not fit the layout
+     */
+    public static void write(ByteBuffer buf, int offset, PassengerRecord r) {
+        if (r.hasOverflow()) {
+            throw new IllegalArgumentException("Category value outside dictionary: " + r);
+        }
+        buf.putLong(offset + BITS_OFFSET, r.getPackedBits());
+        buf.putInt(offset + DISTANCE_OFFSET, r.getFlightDistance());
+        buf.putDouble(offset + DEPARTURE_DELAY_OFFSET, r.getDepartureDelayInMinutes());
+        buf.putDouble(offset + ARRIVAL_DELAY_OFFSET, r.getArrivalDelayInMinutes());
+        putAscii(buf, offset + ID_OFFSET, ID_WIDTH, r.getId());
+        putAscii(buf, offset + DATE_OFFSET, DATE_WIDTH, r.getDate());
+    }
+    
+    /** @return new record read from an absolute offset */
+    public static PassengerRecord read(ByteBuffer buf, int offset) {
+        PassengerRecord r = new PassengerRecord();
+        r.setPackedBits(buf.getLong(offset + BITS_OFFSET));
+        r.setFlightDistance(buf.getInt(offset + DISTANCE_OFFSET));
+        r.setDepartureDelayInMinutes(buf.getDouble(offset + DEPARTURE_DELAY_OFFSET));
+        r.setArrivalDelayInMinutes(buf.getDouble(offset + ARRIVAL_DELAY_OFFSET));
+        r.setId(getAscii(buf, offset + ID_OFFSET));
+        r.setDate(getAscii(buf, offset + DATE_OFFSET));
+        return r;
+    }
+    
+    /**
+     * Copies one row between buffers without decoding it; numeric fields
+     * are converted if the buffers use different byte orders.
+     */
+    public static void copy(ByteBuffer src, int srcOffset, ByteBuffer dst, int dstOffset) {
+        dst.putLong(dstOffset + BITS_OFFSET, src.getLong(srcOffset + BITS_OFFSET));
+        dst.putInt(dstOffset + DISTANCE_OFFSET, src.getInt(srcOffset + DISTANCE_OFFSET));
+        dst.putDouble(dstOffset + DEPARTURE_DELAY_OFFSET, src.getDouble(srcOffset + DEPARTURE_DELAY_OFFSET));
+        dst.putDouble(dstOffset + ARRIVAL_DELAY_OFFSET, src.getDouble(srcOffset + ARRIVAL_DELAY_OFFSET));
+        // id and date are bytes, laid out back to back up to the end of the row
+        for (int i = ID_OFFSET; i < ROW_SIZE; i++) {
+            dst.put(dstOffset + i, src.get(srcOffset + i));
+        }
+    }
+    
+    // Single-field readers, for scans that should not materialize a record
+    public static long bitsAt(ByteBuffer buf, int offset) { return buf.getLong(offset + BITS_OFFSET); }
+    public static int distanceAt(ByteBuffer buf, int offset) { return buf.getInt(offset + DISTANCE_OFFSET); }
+    public static double departureDelayAt(ByteBuffer buf, int offset) { return buf.getDouble(offset + DEPARTURE_DELAY_OFFSET); }
+    public static double arrivalDelayAt(ByteBuffer buf, int offset) { return buf.getDouble(offset + ARRIVAL_DELAY_OFFSET); }
+    public static String idAt(ByteBuffer buf, int offset) { return getAscii(buf, offset + ID_OFFSET); }
+    public static String dateAt(ByteBuffer buf, int offset) { return getAscii(buf, offset + DATE_OFFSET); }
+    
+    /** @return length of the text field at offset, or -1 for null */
+    static int asciiLength(ByteBuffer buf, int offset) {
+        int len = buf.get(offset) & 0xFF;
+        return len == NULL_LENGTH ? -1 : len;
+    }
+    
+    private static void putAscii(ByteBuffer buf, int offset, int width, String value) {
+        if (value == null) {
+            buf.put(offset, (byte) NULL_LENGTH);
+            return;
+        }
+        if (value.length() > width - 1) {
+            throw new IllegalArgumentException("Value longer than " + (width - 1) + " chars: " + value);
+        }
+        buf.put(offset, (byte) value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c > 0x7F) {
+                throw new IllegalArgumentException("Non-ASCII value: " + value);
+            }
+            buf.put(offset + 1 + i, (byte) c);
+        }
+    }
+    
+    private static String getAscii(ByteBuffer buf, int offset) {
+        int len = buf.get(offset) & 0xFF;
+        if (len == NULL_LENGTH) return null;
+        byte[] bytes = new byte[len];
+        for (int i = 0; i < len; i++) {
+            bytes[i] = buf.get(offset + 1 + i);
+        }
+        return new String(bytes, StandardCharsets.US_ASCII);
+    }
+}
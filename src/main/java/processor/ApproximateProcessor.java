@@ -0,0 +1,344 @@
+package processor;
+
+import model.PassengerRecord;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Approximate answers from samples kept during ingest, for datasets too
+ * large to scan for every exploratory question.
+ *
+ * Two kinds of reservoir are fed by add()/addAll():
+ * <ul>
+ *   <li>one sample per stratum (travel class x satisfaction), behind
+ *       every estimate. Stratum sizes are counted exactly, so answers that
+ *       only depend on class and satisfaction (overall or per-class
+ *       satisfaction rate) come out with no sampling error;</li>
+ *   <li>one uniform sample of all rows, for running any existing
+ *       DataProcessor report on a sample (getUniformSample()).</li>
+ * </ul>
+ * Each query reads growing prefixes of the (shuffled) samples until its
+ * Budget is met: a target confidence-interval half-width, a time limit,
+ * or the whole sample.
+ * <pre>
+ * ApproximateProcessor approx = new ApproximateProcessor();
+ * reader.forEachBatch(approx::addAll);
+ * Estimate delay = approx.mean(PassengerRecord::getDepartureDelayInMinutes,
+ *     ApproximateProcessor.Budget.maxError(0.5));
+ * </pre>
+ *
+ * @author IT221 Student
+ * @version 1.0
+ */
+public class ApproximateProcessor {
+
+    /** Default uniform sample size. */
+    public static final int DEFAULT_UNIFORM_CAPACITY = 20000;
+
+    /** Default sample size per stratum. */
+    public static final int DEFAULT_STRATUM_CAPACITY = 4000;
+
+    // Sample rows read by a query's first round; each later round doubles it
+    private static final int FIRST_ROUND_ROWS = 512;
+    private static final String ALL = "";
+
+    /** How much work a query may spend. */
+    public static final class Budget {
+        private final double maxError;
+        private final long maxNanos;
+
+        private Budget(double maxError, long maxNanos) {
+            this.maxError = maxError;
+            this.maxNanos = maxNanos;
+        }
+
+        /**
+         * @param halfWidth largest acceptable 95% interval half-width, in the
+         *                  unit of the answer (e.g. 0.01 for one point of a rate)
+         * @return budget that stops as soon as every answer is that precise
+         */
+        public static Budget maxError(double halfWidth) {
+            return new Budget(halfWidth, Long.MAX_VALUE);
+        }
+
+        /** @return budget that stops before the time limit would be exceeded */
+        public static Budget maxLatency(long millis) {
+            return new Budget(0, millis * 1_000_000L);
+        }
+
+        /** @return budget that always reads the whole sample */
+        public static Budget fullSample() {
+            return new Budget(0, Long.MAX_VALUE);
+        }
+    }
+
+    private final Random random;
+    private final int stratumCapacity;
+    private final ReservoirSample<PassengerRecord> uniform;
+    // Indexed by (class code << 3) | satisfaction code
+    private final List<ReservoirSample<PassengerRecord>> strata = new ArrayList<>(Collections.nCopies(64, null));
+    private final String[] stratumLabels = new String[64];
+    private long population;
+
+    /** Creates a processor with the default sample sizes. */
+    public ApproximateProcessor() {
+        this(DEFAULT_UNIFORM_CAPACITY, DEFAULT_STRATUM_CAPACITY, new Random());
+    }
+
+    /**
+     * @param uniformCapacity uniform sample size
+     * @param stratumCapacity sample size per stratum
+     * @param random source of randomness; seed it for repeatable samples
+     */
+    public ApproximateProcessor(int uniformCapacity, int stratumCapacity, Random random) {
+        this.random = random;
+        this.stratumCapacity = stratumCapacity;
+        this.uniform = new ReservoirSample<>(uniformCapacity, random);
+    }
+
+    /** Adds one ingested record to the samples. */
+    public synchronized void add(PassengerRecord r) {
+        population++;
+        uniform.offer(r);
+        long bits = r.getPackedBits();
+        int key = PassengerRecord.travelClassCodeOf(bits) << 3 | PassengerRecord.satisfactionCodeOf(bits);
+        ReservoirSample<PassengerRecord> stratum = strata.get(key);
+        if (stratum == null) {
+            stratum = new ReservoirSample<>(stratumCapacity, random);
+            strata.set(key, stratum);
+            stratumLabels[key] = r.getTravelClass() + " | " + r.getSatisfaction();
+        }
+        stratum.offer(r);
+    }
+
+    /** Adds a batch of records; usable as a CSVReader.forEachBatch sink. */
+    public synchronized void addAll(List<PassengerRecord> batch) {
+        for (PassengerRecord r : batch) {
+            add(r);
+        }
+    }
+
+    /** @return number of records added */
+    public synchronized long getPopulationSize() {
+        return population;
+    }
+
+    /** @return exact record count per stratum (class | satisfaction) */
+    public synchronized Map<String, Long> getStratumSizes() {
+        Map<String, Long> sizes = new TreeMap<>();
+        for (int i = 0; i < strata.size(); i++) {
+            if (strata.get(i) != null) sizes.put(stratumLabels[i], strata.get(i).getSeen());
+        }
+        return sizes;
+    }
+
+    /** @return estimated share of records matching the predicate; NaN from 0 rows if nothing was added */
+    public Estimate proportion(Predicate<PassengerRecord> predicate, Budget budget) {
+        return orNone(run(stratified(), r -> ALL, r -> predicate.test(r) ? 1 : 0, false, budget).get(ALL));
+    }
+
+    /** @return estimated number of records matching the predicate; exactly 0 if nothing was added */
+    public Estimate count(Predicate<PassengerRecord> predicate, Budget budget) {
+        Estimate p = proportion(predicate, budget);
+        return p.getPopulation() == 0 ? new Estimate(0, 0, 0, 0) : p.scale(p.getPopulation());
+    }
+
+    /** @return estimated share of satisfied passengers; NaN from 0 rows if nothing was added */
+    public Estimate satisfactionRate(Budget budget) {
+        return proportion(PassengerRecord::isSatisfied, budget);
+    }
+
+    /**
+     * Estimated average of a numeric field; NaN values are ignored.
+     * @param field e.g. PassengerRecord::getDepartureDelayInMinutes
+     * @return estimate; NaN from 0 rows if no sampled row has a value
+     */
+    public Estimate mean(ToDoubleFunction<PassengerRecord> field, Budget budget) {
+        return orNone(run(stratified(), r -> ALL, field, true, budget).get(ALL));
+    }
+
+    /**
+     * Estimated average of a numeric field over the records matching a filter.
+     * @param field e.g. PassengerRecord::getAge
+     * @param where filter
+     */
+    public Estimate mean(ToDoubleFunction<PassengerRecord> field, Predicate<PassengerRecord> where, Budget budget) {
+        return orNone(run(stratified(), r -> where.test(r) ? ALL : null, field, true, budget).get(ALL));
+    }
+
+    /**
+     * Estimated share of records per value, e.g. PassengerRecord::getGender.
+     * @return value to estimated proportion, sorted by value
+     */
+    public Map<String, Estimate> distribution(Function<PassengerRecord, String> key, Budget budget) {
+        return run(stratified(), key, r -> 1, false, budget);
+    }
+
+    /**
+     * Estimated satisfaction rate per group, e.g. PassengerRecord::getCustomerType.
+     * @return group to estimated rate (0-1), sorted by group
+     */
+    public Map<String, Estimate> satisfactionRateBy(Function<PassengerRecord, String> group, Budget budget) {
+        return run(stratified(), group, r -> r.isSatisfied() ? 1 : 0, true, budget);
+    }
+
+    /** @return the estimate, or an unknown (NaN) one from 0 rows if there was nothing to sample */
+    private Estimate orNone(Estimate e) {
+        return e != null ? e : new Estimate(Double.NaN, Double.NaN, 0, population());
+    }
+
+    private synchronized long population() {
+        return population;
+    }
+
+    private synchronized List<Sample> stratified() {
+        List<Sample> samples = new ArrayList<>();
+        for (ReservoirSample<PassengerRecord> s : strata) {
+            if (s != null) samples.add(new Sample(s.toList(), s.getSeen()));
+        }
+        return samples;
+    }
+
+    /**
+     * Uniform random sample of everything added so far. Any DataProcessor
+     * report can run on it, e.g. new DataProcessor(getUniformSample()),
+     * with counts scaled by getPopulationSize() / sample size.
+     * @return copy of the sample in random order
+     */
+    public synchronized List<PassengerRecord> getUniformSample() {
+        return uniform.toList();
+    }
+
+    /**
+     * Progressive stratified estimation. Each round extends every sample's
+     * prefix to the same fraction of its size, doubling the rows read, and
+     * stops when the budget is met or the samples are used up.
+     *
+     * @param samples strata (or the uniform sample as a single stratum)
+     * @param keyOf groups rows; null drops the row
+     * @param value value of a row for its group
+     * @param domain true: average value over the group's rows;
+     *               false: per-row total over all rows of the stratum, so
+     *               an indicator value gives the group's share
+     */
+    private static Map<String, Estimate> run(List<Sample> samples, Function<PassengerRecord, String> keyOf,
+            ToDoubleFunction<PassengerRecord> value, boolean domain, Budget budget) {
+        long start = System.nanoTime();
+        long total = 0;
+        long sampleTotal = 0;
+        for (Sample s : samples) {
+            total += s.population;
+            sampleTotal += s.rows.size();
+        }
+        Map<String, Estimate> result = new TreeMap<>();
+        if (sampleTotal == 0) return result;
+
+        long target = FIRST_ROUND_ROWS;
+        while (true) {
+            long roundStart = System.nanoTime();
+            double fraction = Math.min(1.0, (double) target / sampleTotal);
+            boolean exhausted = true;
+            long read = 0;
+            for (Sample s : samples) {
+                int size = s.rows.size();
+                int end = (int) Math.min(size, Math.max(Math.min(2, size), Math.ceil(fraction * size)));
+                for (int i = s.read; i < end; i++) {
+                    PassengerRecord r = s.rows.get(i);
+                    String k = keyOf.apply(r);
+                    if (k == null) continue;
+                    double v = value.applyAsDouble(r);
+                    if (Double.isNaN(v)) continue;
+                    double[] m = s.moments.computeIfAbsent(k, x -> new double[3]);
+                    m[0]++;
+                    m[1] += v;
+                    m[2] += v * v;
+                }
+                s.read = end;
+                read += end;
+                if (end < size) exhausted = false;
+            }
+            result = combine(samples, total, read, domain);
+            long lastRound = System.nanoTime() - roundStart;
+            if (exhausted) break;
+            if (budget.maxNanos != Long.MAX_VALUE) {
+                // Next round reads about as many new rows as all previous ones
+                if (System.nanoTime() - start + 2 * lastRound > budget.maxNanos) break;
+            } else if (budget.maxError > 0 && !result.isEmpty() && withinError(result, budget.maxError)) {
+                break;
+            }
+            target *= 2;
+        }
+        return result;
+    }
+
+    private static boolean withinError(Map<String, Estimate> estimates, double maxError) {
+        for (Estimate e : estimates.values()) {
+            if (!(e.getMargin() <= maxError)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Combines per-stratum moments into weighted estimates per group.
+     * Totals use the stratified estimator; group averages are the ratio of
+     * two stratified totals (value sum over row count), with the usual
+     * linearized variance. Rows outside a group count as zeros in both.
+     */
+    private static Map<String, Estimate> combine(List<Sample> samples, long total, long read, boolean domain) {
+        // Per group: [estimated row share, estimated value total], both per population row
+        Map<String, double[]> totals = new HashMap<>();
+        for (Sample s : samples) {
+            if (s.read == 0) continue;
+            double weight = (double) s.population / total;
+            for (Map.Entry<String, double[]> e : s.moments.entrySet()) {
+                double[] m = e.getValue();
+                double[] t = totals.computeIfAbsent(e.getKey(), k -> new double[2]);
+                t[0] += weight * m[0] / s.read;
+                t[1] += weight * m[1] / s.read;
+            }
+        }
+        Map<String, Estimate> result = new TreeMap<>();
+        for (Map.Entry<String, double[]> e : totals.entrySet()) {
+            double share = e.getValue()[0];
+            double ratio = domain ? e.getValue()[1] / share : 0;
+            double variance = 0;
+            for (Sample s : samples) {
+                double[] m = s.moments.get(e.getKey());
+                if (m == null || s.read >= s.population) continue;
+                double n = s.read;
+                // Moments of the row's contribution: value, or (value - ratio) / share for averages
+                double sum = domain ? (m[1] - ratio * m[0]) / share : m[1];
+                double sumSq = domain ? (m[2] - 2 * ratio * m[1] + ratio * ratio * m[0]) / (share * share) : m[2];
+                double s2 = n > 1 ? (sumSq - sum * sum / n) / (n - 1) : Double.NaN;
+                // Constant contributions (e.g. a group that is a whole stratum) have no error
+                if (s2 <= 1e-12 * sumSq / n) s2 = 0;
+                double weight = (double) s.population / total;
+                variance += weight * weight * (1 - n / s.population) * s2 / n;
+            }
+            double value = domain ? ratio : e.getValue()[1];
+            result.put(e.getKey(), new Estimate(value, Math.sqrt(variance), read, total));
+        }
+        return result;
+    }
+
+    /** One stratum's shuffled sample and the query's progress through it. */
+    private static class Sample {
+        final List<PassengerRecord> rows;
+        final long population;
+        final Map<String, double[]> moments = new HashMap<>();
+        int read;
+
+        Sample(List<PassengerRecord> rows, long population) {
+            this.rows = rows;
+            this.population = population;
+        }
+    }
+}
@@ -0,0 +1,345 @@
+package processor;
+
+import model.PassengerRecord;
+import model.RecordField;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Runs a list of text queries against one loaded dataset and renders the
+ * results as JSON. Queries are independent, so they run in parallel on a
+ * fixed pool; each result carries its own timing. One query per line:
+ * <pre>
+ * distribution gender|customer_type|class|travel_type|satisfaction|age_group|distance
+ * stats age|distance|departure_delay|arrival_delay
+ * ratings
+ * rate class|customer_type|travel_type|age_group
+ * filter class Eco Plus [limit 10]
+ * filter age 30 40 [limit 10]
+ * filter satisfied true [limit 10]
+ * filter distance 3000 5000 [limit 10]
+ * filter departure_delay|arrival_delay 60 600 [limit 10]
+ * filter date 3/1/2024 3/31/2024 [limit 10]
+ * lookup PAX0000001
+ * correlation
+ * summary
+ * </pre>
+ * Blank lines and lines starting with # are ignored. Filter results
+ * include how many zone-mapped chunks the scan skipped.
+ *
+ * @author IT221 Student
+ * @version 1.0
+ */
+public class BatchRunner {
+
+    /** Rows listed for a filter without an explicit limit. */
+    public static final int DEFAULT_ROW_LIMIT = 10;
+
+    private static final RecordField[] FIELDS = RecordField.values();
+    private static final MethodHandle[] GETTERS = new MethodHandle[FIELDS.length];
+
+    static {
+        for (int i = 0; i < FIELDS.length; i++) {
+            GETTERS[i] = QueryCompiler.getter(PassengerRecord.class, FIELDS[i])
+                .asType(MethodType.methodType(Object.class, PassengerRecord.class));
+        }
+    }
+
+    private final DataProcessor processor;
+    private final int threads;
+
+    /**
+     * @param processor dataset to query
+     * @param threads number of queries run at once
+     */
+    public BatchRunner(DataProcessor processor, int threads) {
+        this.processor = processor;
+        this.threads = Math.max(1, threads);
+    }
+
+    /**
+     * Runs all queries and renders the JSON report.
+     * @param queries query lines, e.g. from a file
+     * @param header extra top-level fields written before the results
+     *               (values are written as JSON numbers or strings)
+     * @return JSON document
+     */
+    public String run(List<String> queries, Map<String, Object> header) {
+        long start = System.nanoTime();
+        List<Integer> lineNumbers = new ArrayList<>();
+        List<String> texts = new ArrayList<>();
+        for (int i = 0; i < queries.size(); i++) {
+            String q = queries.get(i).trim();
+            if (q.isEmpty() || q.startsWith("#")) continue;
+            lineNumbers.add(i + 1);
+            texts.add(q);
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "batch-query");
+            t.setDaemon(true);
+            return t;
+        });
+        List<String> results = new ArrayList<>();
+        try {
+            List<Future<String>> futures = new ArrayList<>();
+            for (int i = 0; i < texts.size(); i++) {
+                int line = lineNumbers.get(i);
+                String text = texts.get(i);
+                futures.add(pool.submit(timed(line, text)));
+            }
+            for (Future<String> f : futures) {
+                results.add(f.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Batch interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Batch failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+
+        StringBuilder sb = new StringBuilder("{\n");
+        for (Map.Entry<String, Object> e : header.entrySet()) {
+            sb.append("  ").append(quote(e.getKey())).append(": ").append(value(e.getValue())).append(",\n");
+        }
+        sb.append("  \"threads\": ").append(threads).append(",\n");
+        sb.append("  \"queryMillis\": ").append(millis(System.nanoTime() - start)).append(",\n");
+        sb.append("  \"results\": [");
+        for (int i = 0; i < results.size(); i++) {
+            sb.append(i == 0 ? "\n    " : ",\n    ").append(results.get(i));
+        }
+        sb.append(results.isEmpty() ? "]\n}\n" : "\n  ]\n}\n");
+        return sb.toString();
+    }
+
+    /** Wraps one query with its timing; errors become part of the result. */
+    private Callable<String> timed(int line, String text) {
+        return () -> {
+            long t0 = System.nanoTime();
+            String result;
+            String error = null;
+            try {
+                result = execute(text);
+            } catch (RuntimeException e) {
+                result = null;
+                error = e.getMessage() != null ? e.getMessage() : e.toString();
+            }
+            StringBuilder sb = new StringBuilder();
+            sb.append("{\"line\": ").append(line)
+              .append(", \"query\": ").append(quote(text))
+              .append(", \"millis\": ").append(millis(System.nanoTime() - t0));
+            if (error != null) sb.append(", \"error\": ").append(quote(error));
+            else sb.append(", \"result\": ").append(result);
+            return sb.append('}').toString();
+        };
+    }
+
+    /** @return JSON value answering one query */
+    String execute(String text) {
+        String[] words = text.split("\\s+");
+        String command = words[0].toLowerCase(Locale.ROOT);
+        switch (command) {
+            case "distribution":
+                return map(distribution(argument(words, 1)));
+            case "stats":
+                return map(stats(argument(words, 1)));
+            case "ratings":
+                return map(processor.getAverageServiceRatings());
+            case "rate":
+                return map(rate(argument(words, 1)));
+            case "filter":
+                return filter(words);
+            case "lookup": {
+                PassengerRecord r = processor.searchById(argument(words, 1));
+                return r == null ? "null" : record(r);
+            }
+            case "correlation":
+                return correlation(processor.getCorrelationMatrix(true));
+            case "summary":
+                return quote(processor.generateComprehensiveSummary());
+            default:
+                throw new IllegalArgumentException("Unknown query: " + words[0]);
+        }
+    }
+
+    private Map<String, Long> distribution(String field) {
+        switch (field) {
+            case "gender": return processor.getGenderDistribution();
+            case "customer_type": return processor.getCustomerTypeDistribution();
+            case "class": return processor.getTravelClassDistribution();
+            case "travel_type": return processor.getTravelTypeDistribution();
+            case "satisfaction": return processor.getSatisfactionDistribution();
+            case "age_group": return processor.getAgeGroupDistribution();
+            case "distance": return processor.getFlightDistanceDistribution();
+            default: throw new IllegalArgumentException("Unknown distribution: " + field);
+        }
+    }
+
+    private Map<String, Double> stats(String field) {
+        switch (field) {
+            case "age": return processor.getAgeStatistics();
+            case "distance": return processor.getFlightDistanceStatistics();
+            case "departure_delay": return processor.getDepartureDelayStatistics();
+            case "arrival_delay": return processor.getArrivalDelayStatistics();
+            default: throw new IllegalArgumentException("Unknown statistics: " + field);
+        }
+    }
+
+    private Map<String, Double> rate(String field) {
+        switch (field) {
+            case "class": return processor.getSatisfactionRateByClass();
+            case "customer_type": return processor.getSatisfactionRateByCustomerType();
+            case "travel_type": return processor.getSatisfactionRateByTravelType();
+            case "age_group": return processor.getSatisfactionRateByAgeGroup();
+            default: throw new IllegalArgumentException("Unknown rate: " + field);
+        }
+    }
+
+    private String filter(String[] words) {
+        int end = words.length;
+        int limit = DEFAULT_ROW_LIMIT;
+        if (end >= 2 && words[end - 2].equalsIgnoreCase("limit")) {
+            limit = integer(words[end - 1]);
+            end -= 2;
+        }
+        String by = argument(words, 1);
+        RecordView view;
+        if (by.equals("class")) {
+            if (end < 3) throw new IllegalArgumentException("filter class needs a class name");
+            view = processor.filterByClass(String.join(" ", Arrays.copyOfRange(words, 2, end)));
+        } else if (by.equals("age")) {
+            if (end != 4) throw new IllegalArgumentException("filter age needs min and max");
+            view = processor.filterByAgeRange(integer(words[2]), integer(words[3]));
+        } else if (by.equals("satisfied")) {
+            if (end != 3) throw new IllegalArgumentException("filter satisfied needs true or false");
+            view = processor.filterBySatisfaction(Boolean.parseBoolean(words[2]));
+        } else if (by.equals("distance")) {
+            if (end != 4) throw new IllegalArgumentException("filter distance needs min and max");
+            view = processor.filterByDistanceRange(integer(words[2]), integer(words[3]));
+        } else if (by.equals("departure_delay") || by.equals("arrival_delay")) {
+            if (end != 4) throw new IllegalArgumentException("filter " + by + " needs min and max");
+            double min = decimal(words[2]);
+            double max = decimal(words[3]);
+            view = by.equals("departure_delay") ? processor.filterByDepartureDelay(min, max)
+                : processor.filterByArrivalDelay(min, max);
+        } else if (by.equals("date")) {
+            if (end != 4) throw new IllegalArgumentException("filter date needs first and last date");
+            view = processor.filterByDateRange(words[2], words[3]);
+        } else {
+            throw new IllegalArgumentException("Unknown filter: " + by);
+        }
+        ScanStats scan = view.getScanStats();
+        StringBuilder sb = new StringBuilder("{\"count\": ").append(view.count())
+            .append(", \"chunksScanned\": ").append(scan.getScannedChunks())
+            .append(", \"chunksSkipped\": ").append(scan.getSkippedChunks())
+            .append(", \"rows\": [");
+        boolean first = true;
+        for (PassengerRecord r : view.limit(limit)) {
+            sb.append(first ? "" : ", ").append(record(r));
+            first = false;
+        }
+        return sb.append("]}").toString();
+    }
+
+    private static String correlation(CorrelationMatrix m) {
+        String[] labels = m.getLabels();
+        StringBuilder sb = new StringBuilder("{\"count\": ").append(m.getCount()).append(", \"labels\": [");
+        for (int i = 0; i < labels.length; i++) {
+            sb.append(i == 0 ? "" : ", ").append(quote(labels[i]));
+        }
+        sb.append("], \"correlation\": [");
+        for (int i = 0; i < labels.length; i++) {
+            sb.append(i == 0 ? "[" : ", [");
+            for (int j = 0; j < labels.length; j++) {
+                sb.append(j == 0 ? "" : ", ").append(number(m.getCorrelation(i, j)));
+            }
+            sb.append(']');
+        }
+        return sb.append("]}").toString();
+    }
+
+    private static String record(PassengerRecord r) {
+        StringBuilder sb = new StringBuilder("{");
+        for (int i = 0; i < FIELDS.length; i++) {
+            Object v;
+            try {
+                v = (Object) GETTERS[i].invokeExact(r);
+            } catch (Throwable t) {
+                throw new IllegalStateException("Cannot read " + FIELDS[i], t);
+            }
+            sb.append(i == 0 ? "" : ", ").append(quote(FIELDS[i].getHeader())).append(": ").append(value(v));
+        }
+        return sb.append('}').toString();
+    }
+
+    private static String map(Map<String, ? extends Number> data) {
+        StringBuilder sb = new StringBuilder("{");
+        boolean first = true;
+        for (Map.Entry<String, ? extends Number> e : data.entrySet()) {
+            sb.append(first ? "" : ", ").append(quote(e.getKey())).append(": ").append(value(e.getValue()));
+            first = false;
+        }
+        return sb.append('}').toString();
+    }
+
+    private static String value(Object v) {
+        if (v == null) return "null";
+        if (v instanceof Double || v instanceof Float) return number(((Number) v).doubleValue());
+        if (v instanceof Number || v instanceof Boolean) return v.toString();
+        return quote(v.toString());
+    }
+
+    private static String number(double v) {
+        return Double.isNaN(v) || Double.isInfinite(v) ? "null" : Double.toString(v);
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1e6);
+    }
+
+    private static String quote(String s) {
+        if (s == null) return "null";
+        StringBuilder sb = new StringBuilder(s.length() + 2).append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '"' || c == '\\') sb.append('\\').append(c);
+            else if (c == '\n') sb.append("\\n");
+            else if (c < 0x20) sb.append(String.format("\\u%04x", (int) c));
+            else sb.append(c);
+        }
+        return sb.append('"').toString();
+    }
+
+    private static String argument(String[] words, int i) {
+        if (i >= words.length) throw new IllegalArgumentException("Missing argument for " + words[0]);
+        return words[i].toLowerCase(Locale.ROOT);
+    }
+
+    private static int integer(String s) {
+        try {
+            return Integer.parseInt(s);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Not a number: " + s);
+        }
+    }
+
+    private static double decimal(String s) {
+        try {
+            return Double.parseDouble(s);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Not a number: " + s);
+        }
+    }
+}
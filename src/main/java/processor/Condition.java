@@ -0,0 +1,165 @@
+package processor;
+
+import model.RecordCursor;
+import model.RecordField;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+/**
+ * Filter condition on PassengerRecord fields, combinable with and/or/not.
+ * Conditions compile to a (RecordCursor)boolean method handle that the
+ * query compiler splices into the scan loop.
+ *
+ * @author IT221 Student
+ * @version 1.0
+ */
+public abstract class Condition {
+
+    private static final MethodHandle BETWEEN;
+    private static final MethodHandle EQUALS;
+    private static final MethodHandle EQUALS_IGNORE_CASE;
+    private static final MethodHandle NOT;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            BETWEEN = lookup.findStatic(Condition.class, "between",
+                MethodType.methodType(boolean.class, double.class, double.class, double.class));
+            EQUALS = lookup.findStatic(Condition.class, "equalsString",
+                MethodType.methodType(boolean.class, String.class, String.class));
+            EQUALS_IGNORE_CASE = lookup.findStatic(Condition.class, "equalsStringIgnoreCase",
+                MethodType.methodType(boolean.class, String.class, String.class));
+            NOT = lookup.findStatic(Condition.class, "not",
+                MethodType.methodType(boolean.class, boolean.class));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private Condition() {}
+
+    /** @return handle of type (RecordCursor)boolean */
+    abstract MethodHandle compile();
+
+    /** @return condition that matches every record */
+    public static Condition all() {
+        return new Condition() {
+            MethodHandle compile() {
+                return MethodHandles.dropArguments(
+                    MethodHandles.constant(boolean.class, true), 0, RecordCursor.class);
+            }
+            public String toString() { return "true"; }
+        };
+    }
+
+    /** @return numeric field within [min, max] */
+    public static Condition between(RecordField field, double min, double max) {
+        requireNumeric(field);
+        return new Condition() {
+            MethodHandle compile() {
+                MethodHandle test = MethodHandles.insertArguments(BETWEEN, 0, min, max);
+                return MethodHandles.filterArguments(test, 0, QueryCompiler.numericGetter(field));
+            }
+            public String toString() { return field + " in [" + min + ", " + max + "]"; }
+        };
+    }
+
+    /** @return numeric field greater than or equal to min */
+    public static Condition atLeast(RecordField field, double min) {
+        return between(field, min, Double.POSITIVE_INFINITY);
+    }
+
+    /** @return numeric field less than or equal to max */
+    public static Condition atMost(RecordField field, double max) {
+        return between(field, Double.NEGATIVE_INFINITY, max);
+    }
+
+    /** @return numeric field equal to value */
+    public static Condition eq(RecordField field, double value) {
+        return between(field, value, value);
+    }
+
+    /** @return text field equal to value */
+    public static Condition eq(RecordField field, String value) {
+        return stringTest(field, value, EQUALS, "=");
+    }
+
+    /** @return text field equal to value, ignoring case */
+    public static Condition eqIgnoreCase(RecordField field, String value) {
+        return stringTest(field, value, EQUALS_IGNORE_CASE, "~=");
+    }
+
+    /** @return condition matching when both match */
+    public Condition and(Condition other) {
+        Condition self = this;
+        return new Condition() {
+            MethodHandle compile() {
+                return MethodHandles.guardWithTest(self.compile(), other.compile(), constant(false));
+            }
+            public String toString() { return "(" + self + " AND " + other + ")"; }
+        };
+    }
+
+    /** @return condition matching when either matches */
+    public Condition or(Condition other) {
+        Condition self = this;
+        return new Condition() {
+            MethodHandle compile() {
+                return MethodHandles.guardWithTest(self.compile(), constant(true), other.compile());
+            }
+            public String toString() { return "(" + self + " OR " + other + ")"; }
+        };
+    }
+
+    /** @return condition matching when this one does not */
+    public Condition negate() {
+        Condition self = this;
+        return new Condition() {
+            MethodHandle compile() {
+                return MethodHandles.filterReturnValue(self.compile(), NOT);
+            }
+            public String toString() { return "NOT " + self; }
+        };
+    }
+
+    private static Condition stringTest(RecordField field, String value, MethodHandle test, String op) {
+        if (field.isNumeric()) {
+            throw new IllegalArgumentException(field + " is not a text field");
+        }
+        return new Condition() {
+            MethodHandle compile() {
+                return MethodHandles.filterArguments(
+                    MethodHandles.insertArguments(test, 0, value), 0, QueryCompiler.getter(field));
+            }
+            public String toString() { return field + " " + op + " '" + value + "'"; }
+        };
+    }
+
+    private static void requireNumeric(RecordField field) {
+        if (!field.isNumeric()) {
+            throw new IllegalArgumentException(field + " is not a numeric field");
+        }
+    }
+
+    private static MethodHandle constant(boolean value) {
+        return MethodHandles.dropArguments(
+            MethodHandles.constant(boolean.class, value), 0, RecordCursor.class);
+    }
+
+    private static boolean between(double min, double max, double v) {
+        return v >= min && v <= max;
+    }
+
+    private static boolean equalsString(String expected, String v) {
+        return expected.equals(v);
+    }
+
+    private static boolean equalsStringIgnoreCase(String expected, String v) {
+        return expected.equalsIgnoreCase(v);
+    }
+
+    private static boolean not(boolean v) {
+        return !v;
+    }
+}
@@ -0,0 +1,110 @@
+package processor;
+
+/**
+ * Streaming mean and co-moment accumulator for a fixed set of variables.
+ * Uses Welford's update per observation and Chan's formula to merge
+ * partial results, so partitions can be accumulated in parallel.
+ *
+ * @author IT221 Student
+ * @version 1.0
+ */
+public class CorrelationAccumulator {
+
+    private final int dimension;
+    private long count;
+    private final double[] mean;
+    // Co-moments: sum of (x_i - mean_i)(x_j - mean_j), upper triangle used
+    private final double[][] comoment;
+    private final double[] delta;
+
+    /** @param dimension number of variables per observation */
+    public CorrelationAccumulator(int dimension) {
+        this.dimension = dimension;
+        this.mean = new double[dimension];
+        this.comoment = new double[dimension][dimension];
+        this.delta = new double[dimension];
+    }
+
+    /**
+     * Adds one observation.
+     * @param x values, length must equal the dimension
+     */
+    public void add(double[] x) {
+        count++;
+        for (int i = 0; i < dimension; i++) {
+            delta[i] = x[i] - mean[i];
+            mean[i] += delta[i] / count;
+        }
+        for (int i = 0; i < dimension; i++) {
+            double di = delta[i];
+            double[] row = comoment[i];
+            for (int j = i; j < dimension; j++) {
+                row[j] += di * (x[j] - mean[j]);
+            }
+        }
+    }
+
+    /**
+     * Merges another accumulator into this one.
+     * @param other accumulator over a disjoint set of observations
+     * @return this accumulator
+     */
+    public CorrelationAccumulator merge(CorrelationAccumulator other) {
+        if (other.dimension != dimension) {
+            throw new IllegalArgumentException("Dimension mismatch: " + dimension + " vs " + other.dimension);
+        }
+        if (other.count == 0) return this;
+        if (count == 0) {
+            count = other.count;
+            for (int i = 0; i < dimension; i++) {
+                mean[i] = other.mean[i];
+                System.arraycopy(other.comoment[i], 0, comoment[i], 0, dimension);
+            }
+            return this;
+        }
+        long n = count + other.count;
+        double factor = (double) count * other.count / n;
+        for (int i = 0; i < dimension; i++) {
+            delta[i] = other.mean[i] - mean[i];
+        }
+        for (int i = 0; i < dimension; i++) {
+            for (int j = i; j < dimension; j++) {
+                comoment[i][j] += other.comoment[i][j] + delta[i] * delta[j] * factor;
+            }
+        }
+        for (int i = 0; i < dimension; i++) {
+            mean[i] += delta[i] * other.count / n;
+        }
+        count = n;
+        return this;
+    }
+
+    public long getCount() { return count; }
+    public int getDimension() { return dimension; }
+
+    /** @return sample covariance matrix (n - 1 denominator) */
+    public double[][] covariance() {
+        double[][] cov = new double[dimension][dimension];
+        if (count < 2) return cov;
+        for (int i = 0; i < dimension; i++) {
+            for (int j = i; j < dimension; j++) {
+                cov[i][j] = comoment[i][j] / (count - 1);
+                cov[j][i] = cov[i][j];
+            }
+        }
+        return cov;
+    }
+
+    /** @return Pearson correlation matrix; NaN where a variable is constant */
+    public double[][] correlation() {
+        double[][] corr = new double[dimension][dimension];
+        for (int i = 0; i < dimension; i++) {
+            for (int j = i; j < dimension; j++) {
+                double denom = Math.sqrt(comoment[i][i] * comoment[j][j]);
+                corr[i][j] = denom > 0 ? comoment[i][j] / denom : Double.NaN;
+                corr[j][i] = corr[i][j];
+            }
+        }
+        return corr;
+    }
+}
@@ -0,0 +1,71 @@
+package processor;
+
+/**
+ * Pearson correlation and covariance matrix over labelled variables.
+ *
+ * @author IT221 Student
+ * @version 1.0
+ */
+public class CorrelationMatrix {
+
+    private final String[] labels;
+    private final double[][] correlation;
+    private final double[][] covariance;
+    private final long count;
+
+    public CorrelationMatrix(String[] labels, CorrelationAccumulator acc) {
+        if (labels.length != acc.getDimension()) {
+            throw new IllegalArgumentException("Expected " + acc.getDimension() + " labels");
+        }
+        this.labels = labels.clone();
+        this.correlation = acc.correlation();
+        this.covariance = acc.covariance();
+        this.count = acc.getCount();
+    }
+
+    public String[] getLabels() { return labels.clone(); }
+    public long getCount() { return count; }
+
+    /** @return index of the variable with the given label, or -1 */
+    public int indexOf(String label) {
+        for (int i = 0; i < labels.length; i++) {
+            if (labels[i].equals(label)) return i;
+        }
+        return -1;
+    }
+
+    public double getCorrelation(int i, int j) { return correlation[i][j]; }
+    public double getCovariance(int i, int j) { return covariance[i][j]; }
+
+    /** @return copy of the full correlation matrix */
+    public double[][] getCorrelation() {
+        double[][] copy = new double[labels.length][];
+        for (int i = 0; i < labels.length; i++) copy[i] = correlation[i].clone();
+        return copy;
+    }
+
+    /** @return copy of the full covariance matrix */
+    public double[][] getCovariance() {
+        double[][] copy = new double[labels.length][];
+        for (int i = 0; i < labels.length; i++) copy[i] = covariance[i].clone();
+        return copy;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%-19s", ""));
+        for (int j = 0; j < labels.length; j++) {
+            sb.append(String.format("%6d", j + 1));
+        }
+        sb.append("\n");
+        for (int i = 0; i < labels.length; i++) {
+            sb.append(String.format("%2d %-16s", i + 1, labels[i]));
+            for (int j = 0; j < labels.length; j++) {
+                sb.append(String.format("%6.2f", correlation[i][j]));
+            }
+            sb.append("\n");
+        }
+        return sb.toString();
+    }
+}
@@ -1,23 +1,85 @@
 package processor;
 
 import model.PassengerRecord;
-import java.util.ArrayList;
+import model.RecordCursor;
+import util.SurveyDates;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.LongToIntFunction;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
 
 /**
  * Processes and analyzes passenger satisfaction data.
  * 
+ * The records are split into chunks of chunkRows consecutive rows, each
+ * with a ZoneMap built on first use. The filter methods skip chunks whose
+ * zone map rules out a match; RecordView.getScanStats() reports how many.
+ * 
+ * Scans read rows through a RecordCursor and count categories by their
+ * packed codes, so they allocate nothing per row. Over an OffHeapDataset
+ * the rows stay in their buffers; records are decoded only for results.
+ * 
  * @author IT221 Student
  * @version 1.0
  */
 public class DataProcessor {
     
+    /** Display names of the 14 services, in PassengerRecord rating order. */
+    public static final String[] SERVICE_NAMES = {
+        "Inflight Wifi", "Time Convenient", "Online Booking", "Gate Location",
+        "Food and Drink", "Online Boarding", "Seat Comfort", "Entertainment",
+        "On-board Service", "Leg Room", "Baggage Handling", "Check-in Service",
+        "Inflight Service", "Cleanliness"
+    };
+    
+    /** Default rows per chunk, the same as OffHeapDataset. */
+    public static final int CHUNK_ROWS = OffHeapDataset.CHUNK_ROWS;
+    
+    private static final String[] AGE_GROUPS = {"Under 18", "18-29", "30-44", "45-59", "60+"};
+    private static final String[] DISTANCE_GROUPS = {
+        "Short (<500 mi)", "Medium (500-1500 mi)", "Long (1500-3000 mi)", "Very Long (3000+ mi)"
+    };
+    
     private List<PassengerRecord> records;
+    private final OffHeapDataset offHeap;
+    private final int chunkRows;
+    private volatile CountIndex countIndex;
+    private volatile ZoneMap[] zoneMaps;
     
     public DataProcessor(List<PassengerRecord> records) {
+        this(records, CHUNK_ROWS);
+    }
+    
+    /**
+     * @param records records to analyze; must not change afterwards
+     * @param chunkRows rows per zone-mapped chunk
+     */
+    public DataProcessor(List<PassengerRecord> records, int chunkRows) {
+        this(records, null, chunkRows);
+    }
+    
+    /** @param data off-heap rows to analyze in place; must stay open and unchanged */
+    public DataProcessor(OffHeapDataset data) {
+        this(data.asList(), data, CHUNK_ROWS);
+    }
+    
+    private DataProcessor(List<PassengerRecord> records, OffHeapDataset offHeap, int chunkRows) {
+        if (chunkRows < 1) throw new IllegalArgumentException("Chunk size must be positive: " + chunkRows);
         this.records = records;
+        this.offHeap = offHeap;
+        this.chunkRows = chunkRows;
+    }
+    
+    /** @return new cursor before the first record */
+    public RecordCursor cursor() {
+        return offHeap != null ? offHeap.cursor() : RecordCursor.over(records);
     }
     
     /** @return total number of records */
@@ -27,52 +89,27 @@ public class DataProcessor {
     
     /** @return gender count distribution */
     public Map<String, Long> getGenderDistribution() {
-        Map<String, Long> counts = new HashMap<>();
-        for (PassengerRecord r : records) {
-            String key = r.getGender();
-            counts.put(key, counts.getOrDefault(key, 0L) + 1);
-        }
-        return counts;
+        return countByCode(PassengerRecord::genderCodeOf, PassengerRecord.GENDERS, RecordCursor::getGender);
     }
     
     /** @return customer type count distribution */
     public Map<String, Long> getCustomerTypeDistribution() {
-        Map<String, Long> counts = new HashMap<>();
-        for (PassengerRecord r : records) {
-            String key = r.getCustomerType();
-            counts.put(key, counts.getOrDefault(key, 0L) + 1);
-        }
-        return counts;
+        return countByCode(PassengerRecord::customerTypeCodeOf, PassengerRecord.CUSTOMER_TYPES, RecordCursor::getCustomerType);
     }
     
     /** @return travel class count distribution */
     public Map<String, Long> getTravelClassDistribution() {
-        Map<String, Long> counts = new HashMap<>();
-        for (PassengerRecord r : records) {
-            String key = r.getTravelClass();
-            counts.put(key, counts.getOrDefault(key, 0L) + 1);
-        }
-        return counts;
+        return countByCode(PassengerRecord::travelClassCodeOf, PassengerRecord.TRAVEL_CLASSES, RecordCursor::getTravelClass);
     }
     
     /** @return travel type count distribution */
     public Map<String, Long> getTravelTypeDistribution() {
-        Map<String, Long> counts = new HashMap<>();
-        for (PassengerRecord r : records) {
-            String key = r.getTypeOfTravel();
-            counts.put(key, counts.getOrDefault(key, 0L) + 1);
-        }
-        return counts;
+        return countByCode(PassengerRecord::travelTypeCodeOf, PassengerRecord.TRAVEL_TYPES, RecordCursor::getTypeOfTravel);
     }
     
     /** @return satisfaction count distribution */
     public Map<String, Long> getSatisfactionDistribution() {
-        Map<String, Long> counts = new HashMap<>();
-        for (PassengerRecord r : records) {
-            String key = r.getSatisfaction();
-            counts.put(key, counts.getOrDefault(key, 0L) + 1);
-        }
-        return counts;
+        return countByCode(PassengerRecord::satisfactionCodeOf, PassengerRecord.SATISFACTIONS, RecordCursor::getSatisfaction);
     }
     
     /** @return min, max, average age statistics */
@@ -80,7 +117,8 @@ public class DataProcessor {
         Map<String, Double> stats = new HashMap<>();
         int min = Integer.MAX_VALUE, max = Integer.MIN_VALUE, total = 0;
         
-        for (PassengerRecord r : records) {
+        RecordCursor r = cursor();
+        while (r.next()) {
             int age = r.getAge();
             if (age < min) min = age;
             if (age > max) max = age;
@@ -95,18 +133,12 @@ public class DataProcessor {
     
     /** @return age group count distribution */
     public Map<String, Long> getAgeGroupDistribution() {
-        Map<String, Long> counts = new HashMap<>();
-        for (PassengerRecord r : records) {
-            int age = r.getAge();
-            String group;
-            if (age < 18) group = "Under 18";
-            else if (age < 30) group = "18-29";
-            else if (age < 45) group = "30-44";
-            else if (age < 60) group = "45-59";
-            else group = "60+";
-            counts.put(group, counts.getOrDefault(group, 0L) + 1);
+        long[] counts = new long[AGE_GROUPS.length];
+        RecordCursor r = cursor();
+        while (r.next()) {
+            counts[ageGroup(r.getAge())]++;
         }
-        return counts;
+        return nonZero(AGE_GROUPS, counts);
     }
     
     /** @return flight distance statistics */
@@ -115,7 +147,8 @@ public class DataProcessor {
         int min = Integer.MAX_VALUE, max = Integer.MIN_VALUE;
         long total = 0;
         
-        for (PassengerRecord r : records) {
+        RecordCursor r = cursor();
+        while (r.next()) {
             int dist = r.getFlightDistance();
             if (dist < min) min = dist;
             if (dist > max) max = dist;
@@ -131,17 +164,18 @@ public class DataProcessor {
     
     /** @return flight distance category distribution */
     public Map<String, Long> getFlightDistanceDistribution() {
-        Map<String, Long> counts = new HashMap<>();
-        for (PassengerRecord r : records) {
+        long[] counts = new long[DISTANCE_GROUPS.length];
+        RecordCursor r = cursor();
+        while (r.next()) {
             int dist = r.getFlightDistance();
-            String cat;
-            if (dist < 500) cat = "Short (<500 mi)";
-            else if (dist < 1500) cat = "Medium (500-1500 mi)";
-            else if (dist < 3000) cat = "Long (1500-3000 mi)";
-            else cat = "Very Long (3000+ mi)";
-            counts.put(cat, counts.getOrDefault(cat, 0L) + 1);
+            int cat;
+            if (dist < 500) cat = 0;
+            else if (dist < 1500) cat = 1;
+            else if (dist < 3000) cat = 2;
+            else cat = 3;
+            counts[cat]++;
         }
-        return counts;
+        return nonZero(DISTANCE_GROUPS, counts);
     }
     
     /** @return departure delay statistics */
@@ -150,7 +184,8 @@ public class DataProcessor {
         double min = Double.MAX_VALUE, max = Double.MIN_VALUE, total = 0;
         long delayed = 0;
         
-        for (PassengerRecord r : records) {
+        RecordCursor r = cursor();
+        while (r.next()) {
             double delay = r.getDepartureDelayInMinutes();
             if (delay < min) min = delay;
             if (delay > max) max = delay;
@@ -171,7 +206,8 @@ public class DataProcessor {
         Map<String, Double> stats = new HashMap<>();
         double min = Double.MAX_VALUE, max = Double.MIN_VALUE, total = 0;
         
-        for (PassengerRecord r : records) {
+        RecordCursor r = cursor();
+        while (r.next()) {
             double delay = r.getArrivalDelayInMinutes();
             if (delay < min) min = delay;
             if (delay > max) max = delay;
@@ -187,41 +223,20 @@ public class DataProcessor {
     /** @return average rating for each service */
     public Map<String, Double> getAverageServiceRatings() {
         Map<String, Double> ratings = new HashMap<>();
-        long w = 0, t = 0, b = 0, g = 0, f = 0, bo = 0, s = 0;
-        long e = 0, o = 0, l = 0, ba = 0, c = 0, inf = 0, cl = 0;
+        long[] sums = new long[PassengerRecord.SERVICE_COUNT];
         
-        for (PassengerRecord r : records) {
-            w += r.getInflightWifiService();
-            t += r.getDepartureArrivalTimeConvenient();
-            b += r.getEaseOfOnlineBooking();
-            g += r.getGateLocation();
-            f += r.getFoodAndDrink();
-            bo += r.getOnlineBoarding();
-            s += r.getSeatComfort();
-            e += r.getInflightEntertainment();
-            o += r.getOnBoardService();
-            l += r.getLegRoomService();
-            ba += r.getBaggageHandling();
-            c += r.getCheckinService();
-            inf += r.getInflightService();
-            cl += r.getCleanliness();
+        RecordCursor r = cursor();
+        while (r.next()) {
+            long bits = r.getPackedBits();
+            for (int i = 0; i < sums.length; i++) {
+                sums[i] += PassengerRecord.ratingOf(bits, i);
+            }
         }
         
         int n = records.size();
-        ratings.put("Inflight Wifi", (double) w / n);
-        ratings.put("Time Convenient", (double) t / n);
-        ratings.put("Online Booking", (double) b / n);
-        ratings.put("Gate Location", (double) g / n);
-        ratings.put("Food and Drink", (double) f / n);
-        ratings.put("Online Boarding", (double) bo / n);
-        ratings.put("Seat Comfort", (double) s / n);
-        ratings.put("Entertainment", (double) e / n);
-        ratings.put("On-board Service", (double) o / n);
-        ratings.put("Leg Room", (double) l / n);
-        ratings.put("Baggage Handling", (double) ba / n);
-        ratings.put("Check-in Service", (double) c / n);
-        ratings.put("Inflight Service", (double) inf / n);
-        ratings.put("Cleanliness", (double) cl / n);
+        for (int i = 0; i < sums.length; i++) {
+            ratings.put(SERVICE_NAMES[i], (double) sums[i] / n);
+        }
         return ratings;
     }
     
@@ -229,159 +244,396 @@ public class DataProcessor {
     public String getServiceRankingSummary() {
         Map<String, Double> ratings = getAverageServiceRatings();
         String[] services = ratings.keySet().toArray(new String[0]);
-        
-        // Sort by rating (descending)
-        for (int i = 0; i < services.length - 1; i++) {
-            for (int j = 0; j < services.length - i - 1; j++) {
-                if (ratings.get(services[j]) < ratings.get(services[j + 1])) {
-                    String temp = services[j];
-                    services[j] = services[j + 1];
-                    services[j + 1] = temp;
-                }
-            }
+        double[] averages = new double[services.length];
+        for (int i = 0; i < services.length; i++) {
+            averages[i] = ratings.get(services[i]);
         }
         
+        int[] top = selectRanked(averages, 3, true);
+        int[] bottom = selectRanked(averages, 3, false);
+        
         StringBuilder sb = new StringBuilder();
         sb.append("Top 3:\n");
-        for (int i = 0; i < 3; i++) {
-            sb.append("  ").append(i + 1).append(". ").append(services[i]);
-            sb.append(": ").append(String.format("%.2f", ratings.get(services[i]))).append("\n");
+        for (int i = 0; i < top.length; i++) {
+            sb.append("  ").append(i + 1).append(". ").append(services[top[i]]);
+            sb.append(": ").append(String.format("%.2f", averages[top[i]])).append("\n");
         }
         sb.append("Bottom 3:\n");
-        int len = services.length;
-        for (int i = len - 3; i < len; i++) {
-            sb.append("  ").append(len - i).append(". ").append(services[i]);
-            sb.append(": ").append(String.format("%.2f", ratings.get(services[i]))).append("\n");
+        int len = bottom.length;
+        for (int i = 0; i < len; i++) {
+            sb.append("  ").append(len - i).append(". ").append(services[bottom[i]]);
+            sb.append(": ").append(String.format("%.2f", averages[bottom[i]])).append("\n");
         }
         return sb.toString();
     }
     
-    /** @return satisfaction rate by travel class */
-    public Map<String, Double> getSatisfactionRateByClass() {
-        Map<String, Integer> totals = new HashMap<>();
-        Map<String, Integer> satisfied = new HashMap<>();
+    /**
+     * Ranks services for every class x travel type x customer type segment.
+     * Rating sums for all segments are collected in a single scan, then the
+     * top and bottom k services of each segment are selected without sorting.
+     * @param k number of services to keep at each end of the ranking
+     * @return rankings keyed by segment name, in segment name order
+     */
+    public Map<String, SegmentRanking> getSegmentServiceRankings(int k) {
+        int n = PassengerRecord.SERVICE_COUNT;
+        int keep = Math.max(0, Math.min(k, n));
         
-        for (PassengerRecord r : records) {
-            String cls = r.getTravelClass();
-            totals.put(cls, totals.getOrDefault(cls, 0) + 1);
-            if (r.isSatisfied()) {
-                satisfied.put(cls, satisfied.getOrDefault(cls, 0) + 1);
+        // Per segment: 14 rating sums followed by the record count. Segments
+        // are addressed by their packed category codes; only values outside
+        // the dictionaries fall back to a string key.
+        long[][] byCode = new long[512][];
+        Map<String, long[]> sums = new HashMap<>();
+        RecordCursor r = cursor();
+        while (r.next()) {
+            long bits = r.getPackedBits();
+            int cls = PassengerRecord.travelClassCodeOf(bits);
+            int travel = PassengerRecord.travelTypeCodeOf(bits);
+            int cust = PassengerRecord.customerTypeCodeOf(bits);
+            long[] acc;
+            if (cls == PassengerRecord.CODE_OVERFLOW || travel == PassengerRecord.CODE_OVERFLOW
+                    || cust == PassengerRecord.CODE_OVERFLOW) {
+                acc = sums.computeIfAbsent(segmentName(r), key -> new long[n + 1]);
+            } else {
+                int code = (cls << 6) | (travel << 3) | cust;
+                acc = byCode[code];
+                if (acc == null) {
+                    acc = sums.computeIfAbsent(segmentName(r), key -> new long[n + 1]);
+                    byCode[code] = acc;
+                }
             }
+            for (int i = 0; i < n; i++) {
+                acc[i] += PassengerRecord.ratingOf(bits, i);
+            }
+            acc[n]++;
         }
         
-        Map<String, Double> rates = new HashMap<>();
-        for (String cls : totals.keySet()) {
-            rates.put(cls, satisfied.getOrDefault(cls, 0) * 100.0 / totals.get(cls));
+        Map<String, SegmentRanking> rankings = new TreeMap<>();
+        double[] averages = new double[n];
+        for (Map.Entry<String, long[]> e : sums.entrySet()) {
+            long[] acc = e.getValue();
+            for (int i = 0; i < n; i++) {
+                averages[i] = (double) acc[i] / acc[n];
+            }
+            int[] top = selectRanked(averages, keep, true);
+            int[] bottom = selectRanked(averages, keep, false);
+            
+            String[] topNames = new String[keep], bottomNames = new String[keep];
+            double[] topAvg = new double[keep], bottomAvg = new double[keep];
+            for (int i = 0; i < keep; i++) {
+                topNames[i] = SERVICE_NAMES[top[i]];
+                topAvg[i] = averages[top[i]];
+                bottomNames[i] = SERVICE_NAMES[bottom[i]];
+                bottomAvg[i] = averages[bottom[i]];
+            }
+            rankings.put(e.getKey(), new SegmentRanking(e.getKey(), acc[n],
+                    topNames, topAvg, bottomNames, bottomAvg));
         }
-        return rates;
+        return rankings;
     }
     
-    /** @return satisfaction rate by customer type */
-    public Map<String, Double> getSatisfactionRateByCustomerType() {
-        Map<String, Integer> totals = new HashMap<>();
-        Map<String, Integer> satisfied = new HashMap<>();
-        
-        for (PassengerRecord r : records) {
-            String type = r.getCustomerType();
-            totals.put(type, totals.getOrDefault(type, 0) + 1);
-            if (r.isSatisfied()) {
-                satisfied.put(type, satisfied.getOrDefault(type, 0) + 1);
+    private static String segmentName(RecordCursor r) {
+        return r.getTravelClass() + " | " + r.getTypeOfTravel() + " | " + r.getCustomerType();
+    }
+    
+    /**
+     * Selects the k highest (or lowest) values by insertion into a k-slot
+     * buffer, O(n * k) instead of a full sort.
+     * @return indices ordered from highest to lowest value
+     */
+    private static int[] selectRanked(double[] values, int k, boolean highest) {
+        int[] picked = new int[Math.min(k, values.length)];
+        int size = 0;
+        for (int i = 0; i < values.length; i++) {
+            int pos = size;
+            // Walk back while the new value ranks ahead of the slot before it
+            while (pos > 0 && (highest ? values[i] > values[picked[pos - 1]]
+                                       : values[i] < values[picked[pos - 1]])) {
+                pos--;
             }
+            if (pos >= picked.length) continue;
+            int end = Math.min(size, picked.length - 1);
+            System.arraycopy(picked, pos, picked, pos + 1, end - pos);
+            picked[pos] = i;
+            if (size < picked.length) size++;
         }
-        
-        Map<String, Double> rates = new HashMap<>();
-        for (String type : totals.keySet()) {
-            rates.put(type, satisfied.getOrDefault(type, 0) * 100.0 / totals.get(type));
+        if (!highest) {
+            // Lowest-first selection; report highest-first like the top list
+            for (int i = 0, j = size - 1; i < j; i++, j--) {
+                int t = picked[i];
+                picked[i] = picked[j];
+                picked[j] = t;
+            }
         }
-        return rates;
+        return picked;
+    }
+    
+    /**
+     * Builds the Pearson correlation/covariance matrix of the 14 service
+     * ratings and satisfaction (1 = satisfied, 0 = otherwise), optionally
+     * followed by departure and arrival delay. Partitions of the dataset are
+     * accumulated in parallel in a single pass and their co-moments merged.
+     * @param includeDelays whether to add the two delay columns
+     * @return correlation matrix with satisfaction after the ratings
+     */
+    public CorrelationMatrix getCorrelationMatrix(boolean includeDelays) {
+        int n = PassengerRecord.SERVICE_COUNT;
+        int dim = n + (includeDelays ? 3 : 1);
+        String[] labels = new String[dim];
+        System.arraycopy(SERVICE_NAMES, 0, labels, 0, n);
+        labels[n] = "Satisfaction";
+        if (includeDelays) {
+            labels[n + 1] = "Departure Delay";
+            labels[n + 2] = "Arrival Delay";
+        }
+        
+        int size = records.size();
+        int parts = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), size / 4096));
+        CorrelationAccumulator acc = IntStream.range(0, parts).parallel()
+            .mapToObj(p -> {
+                CorrelationAccumulator part = new CorrelationAccumulator(dim);
+                double[] x = new double[dim];
+                RecordCursor r = cursor();
+                int end = (int) ((long) size * (p + 1) / parts);
+                for (int row = (int) ((long) size * p / parts); row < end; row++) {
+                    r.moveTo(row);
+                    for (int i = 0; i < n; i++) {
+                        x[i] = r.getServiceRating(i);
+                    }
+                    x[n] = r.isSatisfied() ? 1 : 0;
+                    if (includeDelays) {
+                        x[n + 1] = r.getDepartureDelayInMinutes();
+                        x[n + 2] = r.getArrivalDelayInMinutes();
+                    }
+                    part.add(x);
+                }
+                return part;
+            })
+            .reduce(CorrelationAccumulator::merge)
+            .orElseGet(() -> new CorrelationAccumulator(dim));
+        return new CorrelationMatrix(labels, acc);
+    }
+    
+    /** @return satisfaction rate by travel class */
+    public Map<String, Double> getSatisfactionRateByClass() {
+        return rateByCode(PassengerRecord::travelClassCodeOf, PassengerRecord.TRAVEL_CLASSES, RecordCursor::getTravelClass);
+    }
+    
+    /** @return satisfaction rate by customer type */
+    public Map<String, Double> getSatisfactionRateByCustomerType() {
+        return rateByCode(PassengerRecord::customerTypeCodeOf, PassengerRecord.CUSTOMER_TYPES, RecordCursor::getCustomerType);
     }
     
     /** @return satisfaction rate by travel type */
     public Map<String, Double> getSatisfactionRateByTravelType() {
-        Map<String, Integer> totals = new HashMap<>();
-        Map<String, Integer> satisfied = new HashMap<>();
-        
-        for (PassengerRecord r : records) {
-            String type = r.getTypeOfTravel();
-            totals.put(type, totals.getOrDefault(type, 0) + 1);
-            if (r.isSatisfied()) {
-                satisfied.put(type, satisfied.getOrDefault(type, 0) + 1);
-            }
+        return rateByCode(PassengerRecord::travelTypeCodeOf, PassengerRecord.TRAVEL_TYPES, RecordCursor::getTypeOfTravel);
+    }
+    
+    /** @return satisfaction rate by age group */
+    public Map<String, Double> getSatisfactionRateByAgeGroup() {
+        long[] totals = new long[AGE_GROUPS.length];
+        long[] satisfied = new long[AGE_GROUPS.length];
+        RecordCursor r = cursor();
+        while (r.next()) {
+            int group = ageGroup(r.getAge());
+            totals[group]++;
+            if (r.isSatisfied()) satisfied[group]++;
         }
         
         Map<String, Double> rates = new HashMap<>();
-        for (String type : totals.keySet()) {
-            rates.put(type, satisfied.getOrDefault(type, 0) * 100.0 / totals.get(type));
+        for (int i = 0; i < totals.length; i++) {
+            if (totals[i] > 0) rates.put(AGE_GROUPS[i], satisfied[i] * 100.0 / totals[i]);
         }
         return rates;
     }
     
-    /** @return satisfaction rate by age group */
-    public Map<String, Double> getSatisfactionRateByAgeGroup() {
-        Map<String, Integer> totals = new HashMap<>();
-        Map<String, Integer> satisfied = new HashMap<>();
-        
-        for (PassengerRecord r : records) {
-            int age = r.getAge();
-            String group;
-            if (age < 18) group = "Under 18";
-            else if (age < 30) group = "18-29";
-            else if (age < 45) group = "30-44";
-            else if (age < 60) group = "45-59";
-            else group = "60+";
-            
-            totals.put(group, totals.getOrDefault(group, 0) + 1);
-            if (r.isSatisfied()) {
-                satisfied.put(group, satisfied.getOrDefault(group, 0) + 1);
+    private static int ageGroup(int age) {
+        if (age < 18) return 0;
+        if (age < 30) return 1;
+        if (age < 45) return 2;
+        if (age < 60) return 3;
+        return 4;
+    }
+    
+    /** @return counts keyed by name, leaving out groups with no records */
+    private static Map<String, Long> nonZero(String[] names, long[] counts) {
+        Map<String, Long> result = new HashMap<>();
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] > 0) result.put(names[i], counts[i]);
+        }
+        return result;
+    }
+    
+    /**
+     * Counts records per categorical value using the packed codes; only
+     * values outside the dictionary are read as Strings.
+     * @param codeOf code extractor, e.g. PassengerRecord::genderCodeOf
+     * @param dictionary values for codes 1..n
+     * @param value getter used for overflow values
+     */
+    private Map<String, Long> countByCode(LongToIntFunction codeOf, String[] dictionary,
+                                          Function<RecordCursor, String> value) {
+        long[] byCode = new long[PassengerRecord.CODE_OVERFLOW];
+        Map<String, Long> counts = new HashMap<>();
+        RecordCursor r = cursor();
+        while (r.next()) {
+            int code = codeOf.applyAsInt(r.getPackedBits());
+            if (code == PassengerRecord.CODE_OVERFLOW) counts.merge(value.apply(r), 1L, Long::sum);
+            else byCode[code]++;
+        }
+        // Overflow values never equal a dictionary entry, so no key is counted twice
+        for (int code = 0; code <= dictionary.length; code++) {
+            if (byCode[code] > 0) {
+                counts.put(code == PassengerRecord.CODE_NULL ? null : dictionary[code - 1], byCode[code]);
+            }
+        }
+        return counts;
+    }
+    
+    /** @return satisfaction rate (0-100) per categorical value, counted like countByCode */
+    private Map<String, Double> rateByCode(LongToIntFunction codeOf, String[] dictionary,
+                                           Function<RecordCursor, String> value) {
+        long[] totals = new long[PassengerRecord.CODE_OVERFLOW];
+        long[] satisfied = new long[PassengerRecord.CODE_OVERFLOW];
+        // Overflow values: {total, satisfied}
+        Map<String, long[]> other = new HashMap<>();
+        RecordCursor r = cursor();
+        while (r.next()) {
+            int code = codeOf.applyAsInt(r.getPackedBits());
+            if (code == PassengerRecord.CODE_OVERFLOW) {
+                long[] acc = other.computeIfAbsent(value.apply(r), key -> new long[2]);
+                acc[0]++;
+                if (r.isSatisfied()) acc[1]++;
+            } else {
+                totals[code]++;
+                if (r.isSatisfied()) satisfied[code]++;
             }
         }
         
         Map<String, Double> rates = new HashMap<>();
-        for (String group : totals.keySet()) {
-            rates.put(group, satisfied.getOrDefault(group, 0) * 100.0 / totals.get(group));
+        for (int code = 0; code <= dictionary.length; code++) {
+            if (totals[code] > 0) {
+                String key = code == PassengerRecord.CODE_NULL ? null : dictionary[code - 1];
+                rates.put(key, satisfied[code] * 100.0 / totals[code]);
+            }
+        }
+        for (Map.Entry<String, long[]> e : other.entrySet()) {
+            rates.put(e.getKey(), e.getValue()[1] * 100.0 / e.getValue()[0]);
         }
         return rates;
     }
     
-    /** @return records filtered by satisfaction */
-    public List<PassengerRecord> filterBySatisfaction(boolean wantSatisfied) {
-        List<PassengerRecord> result = new ArrayList<>();
-        for (PassengerRecord r : records) {
-            if (r.isSatisfied() == wantSatisfied) {
-                result.add(r);
-            }
+    /** @return lazy view of records filtered by satisfaction */
+    public RecordView filterBySatisfaction(boolean wantSatisfied) {
+        // Overflow values may still spell "satisfied" in another letter case
+        int satisfiedCodes = ZoneMap.codesMatching(PassengerRecord.SATISFACTIONS, "satisfied");
+        int codes = wantSatisfied ? satisfiedCodes : ~satisfiedCodes | 1 << PassengerRecord.CODE_OVERFLOW;
+        return scan(z -> (z.satisfactions & codes) != 0, r -> r.isSatisfied() == wantSatisfied, () -> {
+            long satisfied = countIndex().satisfied;
+            return wantSatisfied ? satisfied : records.size() - satisfied;
+        });
+    }
+    
+    /** @return lazy view of records filtered by travel class; empty for a null class */
+    public RecordView filterByClass(String travelClass) {
+        if (travelClass == null) {
+            return scan(z -> false, r -> false, () -> 0L);
         }
-        return result;
+        int codes = ZoneMap.codesMatching(PassengerRecord.TRAVEL_CLASSES, travelClass);
+        return scan(z -> (z.travelClasses & codes) != 0, r -> travelClass.equalsIgnoreCase(r.getTravelClass()),
+            () -> countIndex().byClass.getOrDefault(travelClass.toLowerCase(Locale.ROOT), 0L));
     }
     
-    /** @return records filtered by travel class */
-    public List<PassengerRecord> filterByClass(String travelClass) {
-        List<PassengerRecord> result = new ArrayList<>();
-        for (PassengerRecord r : records) {
-            if (r.getTravelClass().equalsIgnoreCase(travelClass)) {
-                result.add(r);
-            }
+    /** @return lazy view of records filtered by age range */
+    public RecordView filterByAgeRange(int minAge, int maxAge) {
+        return scan(z -> z.maxAge >= minAge && z.minAge <= maxAge,
+            r -> r.getAge() >= minAge && r.getAge() <= maxAge,
+            () -> countIndex().countAges(minAge, maxAge));
+    }
+    
+    /** @return lazy view of records with flight distance in [minMiles, maxMiles] */
+    public RecordView filterByDistanceRange(int minMiles, int maxMiles) {
+        return scan(z -> z.maxDistance >= minMiles && z.minDistance <= maxMiles,
+            r -> r.getFlightDistance() >= minMiles && r.getFlightDistance() <= maxMiles, null);
+    }
+    
+    /** @return lazy view of records with departure delay in [minMinutes, maxMinutes] */
+    public RecordView filterByDepartureDelay(double minMinutes, double maxMinutes) {
+        return scan(z -> z.maxDepartureDelay >= minMinutes && z.minDepartureDelay <= maxMinutes,
+            r -> r.getDepartureDelayInMinutes() >= minMinutes && r.getDepartureDelayInMinutes() <= maxMinutes, null);
+    }
+    
+    /** @return lazy view of records with arrival delay in [minMinutes, maxMinutes] */
+    public RecordView filterByArrivalDelay(double minMinutes, double maxMinutes) {
+        return scan(z -> z.maxArrivalDelay >= minMinutes && z.minArrivalDelay <= maxMinutes,
+            r -> r.getArrivalDelayInMinutes() >= minMinutes && r.getArrivalDelayInMinutes() <= maxMinutes, null);
+    }
+    
+    /**
+     * @param from first survey date, M/D/YYYY
+     * @param to last survey date, M/D/YYYY
+     * @return lazy view of records surveyed between the dates, inclusive
+     */
+    public RecordView filterByDateRange(String from, String to) {
+        int first = SurveyDates.toEpochDay(from);
+        int last = SurveyDates.toEpochDay(to);
+        if (first == SurveyDates.UNKNOWN || last == SurveyDates.UNKNOWN) {
+            throw new IllegalArgumentException("Dates must be M/D/YYYY: " + from + ", " + to);
         }
-        return result;
+        return scan(z -> z.maxDate >= first && z.minDate <= last, r -> {
+            int day = SurveyDates.toEpochDay(r.getDateChars());
+            return day != SurveyDates.UNKNOWN && day >= first && day <= last;
+        }, null);
     }
     
-    /** @return records filtered by age range */
-    public List<PassengerRecord> filterByAgeRange(int minAge, int maxAge) {
-        List<PassengerRecord> result = new ArrayList<>();
-        for (PassengerRecord r : records) {
-            int age = r.getAge();
-            if (age >= minAge && age <= maxAge) {
-                result.add(r);
+    /**
+     * Builds a view over the chunks whose zone map passes mayMatch.
+     * @param indexedCount total matches from an index, or null to count by scanning
+     */
+    private RecordView scan(Predicate<ZoneMap> mayMatch, Predicate<RecordCursor> filter,
+                            LongSupplier indexedCount) {
+        ZoneMap[] zones = zoneMaps();
+        int[] ranges = new int[zones.length * 2];
+        int chunks = 0;
+        long rows = 0;
+        for (ZoneMap z : zones) {
+            if (mayMatch.test(z)) {
+                ranges[2 * chunks] = z.start;
+                ranges[2 * chunks + 1] = z.end;
+                chunks++;
+                rows += z.size();
             }
         }
-        return result;
+        ScanStats stats = new ScanStats(zones.length, chunks, records.size(), rows);
+        return new RecordView(this::cursor, Arrays.copyOf(ranges, 2 * chunks), filter, indexedCount, stats);
+    }
+    
+    /** @return number of zone-mapped chunks */
+    public int getChunkCount() {
+        return zoneMaps().length;
+    }
+    
+    /**
+     * Runs an ad-hoc query as one compiled scan over all records, read
+     * through a cursor so off-heap rows are not decoded per row.
+     * @param query condition with optional projection and aggregation
+     * @return match count, aggregate and projected rows
+     */
+    public QueryResult query(Query query) {
+        try {
+            return (QueryResult) query.compiled().invokeExact(cursor());
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new IllegalStateException("Query failed: " + query, t);
+        }
     }
     
     /** @return record with matching ID or null */
     public PassengerRecord searchById(String id) {
-        for (PassengerRecord r : records) {
-            if (r.getId().equalsIgnoreCase(id)) {
-                return r;
+        RecordCursor r = cursor();
+        while (r.next()) {
+            if (r.idEqualsIgnoreCase(id)) {
+                return r.toRecord();
             }
         }
         return null;
@@ -390,8 +642,8 @@ public class DataProcessor {
     /** @return comprehensive data summary */
     public String generateComprehensiveSummary() {
         StringBuilder sb = new StringBuilder();
-        int total = records.size();
-        int satisfied = filterBySatisfaction(true).size();
+        long total = records.size();
+        long satisfied = filterBySatisfaction(true).count();
         
         sb.append("\n  OVERVIEW\n");
         sb.append("  ----------------------------------------\n");
@@ -425,4 +677,79 @@ public class DataProcessor {
         
         return sb.toString();
     }
+    
+    /** @return count index, built by one scan on first use */
+    private CountIndex countIndex() {
+        CountIndex idx = countIndex;
+        if (idx == null) {
+            synchronized (this) {
+                if (countIndex == null) {
+                    countIndex = new CountIndex(cursor());
+                }
+                idx = countIndex;
+            }
+        }
+        return idx;
+    }
+    
+    /** @return zone maps, built by one scan on first use */
+    private ZoneMap[] zoneMaps() {
+        ZoneMap[] zones = zoneMaps;
+        if (zones == null) {
+            synchronized (this) {
+                if (zoneMaps == null) {
+                    zoneMaps = ZoneMap.build(cursor(), chunkRows);
+                }
+                zones = zoneMaps;
+            }
+        }
+        return zones;
+    }
+    
+    /** Match counts for the filter methods, so count() needs no scan. */
+    private static class CountIndex {
+        final Map<String, Long> byClass = new HashMap<>();
+        final long satisfied;
+        final int minAge;
+        // agePrefix[i] = number of records with age < minAge + i
+        final long[] agePrefix;
+        
+        CountIndex(RecordCursor r) {
+            long sat = 0;
+            int lo = Integer.MAX_VALUE, hi = Integer.MIN_VALUE;
+            long[] classCodes = new long[PassengerRecord.CODE_OVERFLOW];
+            while (r.next()) {
+                int code = PassengerRecord.travelClassCodeOf(r.getPackedBits());
+                if (code == PassengerRecord.CODE_OVERFLOW) {
+                    byClass.merge(r.getTravelClass().toLowerCase(Locale.ROOT), 1L, Long::sum);
+                } else {
+                    classCodes[code]++;
+                }
+                if (r.isSatisfied()) sat++;
+                lo = Math.min(lo, r.getAge());
+                hi = Math.max(hi, r.getAge());
+            }
+            for (int code = 1; code <= PassengerRecord.TRAVEL_CLASSES.length; code++) {
+                if (classCodes[code] > 0) {
+                    byClass.merge(PassengerRecord.TRAVEL_CLASSES[code - 1].toLowerCase(Locale.ROOT), classCodes[code], Long::sum);
+                }
+            }
+            int n = r.size();
+            satisfied = sat;
+            minAge = n == 0 ? 0 : lo;
+            agePrefix = new long[n == 0 ? 1 : hi - lo + 2];
+            for (int row = 0; row < n; row++) {
+                agePrefix[r.moveTo(row).getAge() - minAge + 1]++;
+            }
+            for (int i = 1; i < agePrefix.length; i++) {
+                agePrefix[i] += agePrefix[i - 1];
+            }
+        }
+        
+        long countAges(int from, int to) {
+            long a = Math.max((long) from - minAge, 0);
+            long b = Math.min((long) to - minAge + 1, agePrefix.length - 1);
+            return a < b ? agePrefix[(int) b] - agePrefix[(int) a] : 0;
+        }
+    }
 }
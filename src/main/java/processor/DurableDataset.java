@@ -0,0 +1,674 @@
+package processor;
+
+import model.PassengerRecord;
+import model.RowLayout;
+import util.BinaryRecordFile;
+import util.LongIntHashMap;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+
+/**
+ * Appendable dataset that survives a crash. Each appended batch is
+ * written to a write-ahead log and forced to disk before append()
+ * returns; batches appended by several threads at once share one force
+ * (group commit). Every checkpointRows rows the new rows and the running
+ * totals are checkpointed, and log segments the checkpoint covers are
+ * deleted. open() loads the latest checkpoint and replays only the log
+ * written after it, so recovery replays at most about checkpointRows rows
+ * however large the dataset grows.
+ * <pre>
+ * try (DurableDataset data = DurableDataset.open(Paths.get("store"))) {
+ *     data.append(batch);
+ *     DataProcessor processor = new DataProcessor(data.snapshot());
+ * }
+ * </pre>
+ * Files in the directory:
+ * <pre>
+ *  wal-&lt;offset&gt;.log  log segment; offset = log position of its first entry
+ *  rows.bin          checkpointed rows (BinaryRecordFile format)
+ *  checkpoint        row count, log position and totals of the latest checkpoint
+ * </pre>
+ * A log entry is the payload length, the CRC32 of the payload and then
+ * the batch as RowLayout rows, little-endian. An entry cut short by a
+ * crash fails its length or CRC check and is dropped on recovery.
+ *
+ * Each passenger ID is stored once. append() skips records whose ID is
+ * already stored (see getDuplicateCount()), so appending a file again
+ * after an interrupted run adds only the rows that were missing. Rows
+ * never change once appended, so a corrected survey re-sent under a
+ * stored ID is skipped too. The ID index is rebuilt by open(), with IDs
+ * keyed as in UpsertDataset; records without an ID are always appended.
+ *
+ * Appended rows are visible to readers while their force is still
+ * running. If a log write or force fails, the rows in memory may be
+ * ahead of the disk, so the dataset stops: every later call except
+ * close() throws, and close() releases the files without writing. Reopen
+ * the directory to recover every batch that reached the log.
+ *
+ * @author IT221 Student
+ * @version 1.0
+ */
+public class DurableDataset implements AutoCloseable {
+
+    /** Default size after which the log moves on to a new segment. */
+    public static final long DEFAULT_SEGMENT_BYTES = 64L << 20;
+
+    /** Default number of appended rows between checkpoints. */
+    public static final int DEFAULT_CHECKPOINT_ROWS = 1 << 18;
+
+    private static final int CHECKPOINT_MAGIC = 0x434B5054; // "CKPT"
+    private static final int ENTRY_HEADER = 8;
+    private static final int BUFFER_SIZE = 1 << 20;
+    private static final ByteOrder ORDER = BinaryRecordFile.ORDER;
+    private static final String ROWS_FILE = "rows.bin";
+    private static final String CHECKPOINT_FILE = "checkpoint";
+    private static final String SEGMENT_PREFIX = "wal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private final Path dir;
+    private final long segmentBytes;
+    private final int checkpointRows;
+
+    // Guarded by this: rows, totals, and encoded entries not yet written to the log
+    private final OffHeapDataset data = new OffHeapDataset();
+    private RunningAggregates aggregates = new RunningAggregates();
+    private ByteBuffer pending = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ORDER);
+    private long appendedLsn;
+    private boolean closed;
+    // Guarded by this: row of each stored ID (see UpsertDataset.numericKey)
+    private final LongIntHashMap index = new LongIntHashMap(1 << 16);
+    private final Map<String, Integer> otherIds = new HashMap<>();
+    private long duplicates;
+    // Set once a log write fails; nothing is written after that
+    private volatile IOException failure;
+
+    // Guarded by flushLock: the open segment and the segment list
+    private final Object flushLock = new Object();
+    private final TreeMap<Long, Path> segments = new TreeMap<>();
+    private FileChannel segment;
+    private ByteBuffer spare = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ORDER);
+    private volatile long durableLsn;
+    private long syncs;
+
+    // Guarded by checkpointLock
+    private final Object checkpointLock = new Object();
+    private FileChannel rowsFile;
+    private volatile int checkpointedRows;
+    private long checkpointLsn;
+    private long checkpoints;
+
+    private long replayedRows;
+    private long recoveryNanos;
+
+    private DurableDataset(Path dir, long segmentBytes, int checkpointRows) {
+        if (segmentBytes < 1) throw new IllegalArgumentException("Segment size must be positive: " + segmentBytes);
+        if (checkpointRows < 1) throw new IllegalArgumentException("Checkpoint interval must be positive: " + checkpointRows);
+        this.dir = dir;
+        this.segmentBytes = segmentBytes;
+        this.checkpointRows = checkpointRows;
+    }
+
+    /**
+     * Opens or creates a dataset with the default segment size and checkpoint interval.
+     * @param dir directory holding the log and checkpoint; created if missing
+     * @return dataset holding every row whose append() returned
+     * @throws IOException if the files cannot be read or are damaged
+     */
+    public static DurableDataset open(Path dir) throws IOException {
+        return open(dir, DEFAULT_SEGMENT_BYTES, DEFAULT_CHECKPOINT_ROWS);
+    }
+
+    /**
+     * @param dir directory holding the log and checkpoint; created if missing
+     * @param segmentBytes log segment size in bytes
+     * @param checkpointRows rows appended between automatic checkpoints
+     * @return dataset holding every row whose append() returned
+     * @throws IOException if the files cannot be read or are damaged
+     */
+    public static DurableDataset open(Path dir, long segmentBytes, int checkpointRows) throws IOException {
+        Files.createDirectories(dir);
+        DurableDataset ds = new DurableDataset(dir, segmentBytes, checkpointRows);
+        try {
+            ds.recover();
+        } catch (IOException | RuntimeException e) {
+            ds.closeFiles();
+            throw e;
+        }
+        return ds;
+    }
+
+    private void recover() throws IOException {
+        long start = System.nanoTime();
+        Path cp = dir.resolve(CHECKPOINT_FILE);
+        Files.deleteIfExists(dir.resolve(CHECKPOINT_FILE + ".tmp"));
+        if (Files.exists(cp)) {
+            try (DataInputStream in = new DataInputStream(Files.newInputStream(cp))) {
+                if (in.readInt() != CHECKPOINT_MAGIC) {
+                    throw new IOException("Not a checkpoint file: " + cp);
+                }
+                checkpointedRows = in.readInt();
+                checkpointLsn = in.readLong();
+                aggregates = RunningAggregates.readFrom(in);
+            }
+        }
+        loadRows();
+        replayLog();
+        recoveryNanos = System.nanoTime() - start;
+    }
+
+    /** Copies the checkpointed rows in; rows past the checkpoint are from an unfinished one and cut off. */
+    private void loadRows() throws IOException {
+        Path path = dir.resolve(ROWS_FILE);
+        rowsFile = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        ByteBuffer buf = ByteBuffer.allocateDirect(BUFFER_SIZE / RowLayout.ROW_SIZE * RowLayout.ROW_SIZE).order(ORDER);
+        if (rowsFile.size() == 0) {
+            BinaryRecordFile.putHeader(buf);
+            buf.flip();
+            writeFully(rowsFile, buf, 0);
+            rowsFile.force(true);
+        } else {
+            buf.limit(BinaryRecordFile.HEADER_SIZE);
+            readFully(rowsFile, buf, 0);
+            BinaryRecordFile.checkHeader(buf, path);
+        }
+        long end = BinaryRecordFile.HEADER_SIZE + (long) checkpointedRows * RowLayout.ROW_SIZE;
+        if (rowsFile.size() < end) {
+            throw new IOException(path + " holds fewer rows than the checkpoint (" + checkpointedRows + ")");
+        }
+        rowsFile.truncate(end);
+        for (long pos = BinaryRecordFile.HEADER_SIZE; pos < end; ) {
+            buf.clear();
+            buf.limit((int) Math.min(buf.capacity(), end - pos));
+            readFully(rowsFile, buf, pos);
+            for (int off = 0; off < buf.limit(); off += RowLayout.ROW_SIZE) {
+                data.appendRow(buf, off);
+                indexRow(idKey(RowLayout.idAt(buf, off)), data.size() - 1);
+            }
+            pos += buf.limit();
+        }
+    }
+
+    /** Replays the entries after the checkpoint and reopens the last segment for appends. */
+    private void replayLog() throws IOException {
+        TreeMap<Long, Path> found = new TreeMap<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path p : files) {
+                String name = p.getFileName().toString();
+                try {
+                    found.put(Long.parseLong(name.substring(SEGMENT_PREFIX.length(),
+                        name.length() - SEGMENT_SUFFIX.length())), p);
+                } catch (NumberFormatException e) {
+                    throw new IOException("Unexpected log file: " + p);
+                }
+            }
+        }
+        Long first = found.floorKey(checkpointLsn);
+        long lsn = checkpointLsn;
+        if (first == null) {
+            if (!found.isEmpty()) {
+                throw new IOException("Log is missing entries before offset " + found.firstKey());
+            }
+            openSegment(checkpointLsn, 0);
+        } else {
+            // Segments wholly before the checkpoint are left over from before a crash
+            for (Path old : found.headMap(first).values()) {
+                Files.delete(old);
+            }
+            List<Map.Entry<Long, Path>> tail = new ArrayList<>(found.tailMap(first, true).entrySet());
+            for (int i = 0; i < tail.size(); i++) {
+                long start = tail.get(i).getKey();
+                Path path = tail.get(i).getValue();
+                if (i > 0 && start != lsn) {
+                    throw new IOException("Log is missing entries before " + path);
+                }
+                boolean last = i == tail.size() - 1;
+                long end = replaySegment(path, lsn - start, last);
+                lsn = start + end;
+                if (last) openSegment(start, end);
+                else segments.put(start, path);
+            }
+        }
+        appendedLsn = lsn;
+        durableLsn = lsn;
+    }
+
+    /**
+     * Applies the entries of one segment from an offset on.
+     * @return segment offset after the last whole entry
+     */
+    private long replaySegment(Path path, long offset, boolean last) throws IOException {
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long size = ch.size();
+            if (offset > size) {
+                throw new IOException(path + " ends before the checkpoint");
+            }
+            ByteBuffer header = ByteBuffer.allocate(ENTRY_HEADER).order(ORDER);
+            ByteBuffer payload = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ORDER);
+            CRC32 crc = new CRC32();
+            long pos = offset;
+            while (pos + ENTRY_HEADER <= size) {
+                header.clear();
+                readFully(ch, header, pos);
+                int length = header.getInt(0);
+                int checksum = header.getInt(4);
+                if (length <= 0 || length % RowLayout.ROW_SIZE != 0 || length > size - pos - ENTRY_HEADER) break;
+                if (payload.capacity() < length) {
+                    payload = ByteBuffer.allocateDirect(length).order(ORDER);
+                }
+                payload.clear();
+                payload.limit(length);
+                readFully(ch, payload, pos + ENTRY_HEADER);
+                crc.reset();
+                crc.update(payload.duplicate());
+                if ((int) crc.getValue() != checksum) break;
+                for (int off = 0; off < length; off += RowLayout.ROW_SIZE) {
+                    PassengerRecord r = RowLayout.read(payload, off);
+                    data.appendRow(payload, off);
+                    aggregates.add(r);
+                    indexRow(idKey(r.getId()), data.size() - 1);
+                }
+                replayedRows += length / RowLayout.ROW_SIZE;
+                pos += ENTRY_HEADER + length;
+            }
+            if (pos < size) {
+                if (!last) {
+                    throw new IOException("Damaged log entry at offset " + pos + " of " + path);
+                }
+                // A crash cut the last write short; that batch was never acknowledged
+                ch.truncate(pos);
+                ch.force(true);
+            }
+            return pos;
+        }
+    }
+
+    private void openSegment(long start, long position) throws IOException {
+        Path path = dir.resolve(String.format("%s%019d%s", SEGMENT_PREFIX, start, SEGMENT_SUFFIX));
+        segment = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        segment.position(position);
+        segments.put(start, path);
+        syncDirectory();
+    }
+
+    /**
+     * Appends one record; see append(List).
+     * @return false if its ID was already stored
+     */
+    public boolean append(PassengerRecord r) throws IOException {
+        return append(Collections.singletonList(r)) == 1;
+    }
+
+    /**
+     * Appends the records of a batch whose ID is not stored yet, and
+     * returns once they are on disk. The batch is all or nothing: if a
+     * record does not fit the row layout nothing is appended.
+     * @return number of records appended; the rest were duplicates
+     * @throws IOException if the log cannot be written or forced, now or earlier
+     * @throws IllegalArgumentException if a record does not fit RowLayout
+     */
+    public int append(List<PassengerRecord> batch) throws IOException {
+        if (batch.isEmpty()) return 0;
+        long lsn;
+        int size;
+        List<PassengerRecord> fresh;
+        synchronized (this) {
+            checkHealthy();
+            checkOpen();
+            fresh = unseen(batch);
+            if (!fresh.isEmpty()) {
+                write(fresh);
+            }
+            duplicates += batch.size() - fresh.size();
+            lsn = appendedLsn;
+            size = data.size();
+        }
+        // Also waits for an earlier append of the same IDs to reach the disk
+        commit(lsn);
+        if (size - checkpointedRows >= checkpointRows) {
+            checkpoint();
+        }
+        return fresh.size();
+    }
+
+    /** Logs a batch to the pending buffer and adds it to the rows, totals and ID index; called holding this. */
+    private void write(List<PassengerRecord> batch) {
+        int length = batch.size() * RowLayout.ROW_SIZE;
+        reserve(ENTRY_HEADER + length);
+        int entry = pending.position();
+        int rows = entry + ENTRY_HEADER;
+        for (int i = 0; i < batch.size(); i++) {
+            RowLayout.write(pending, rows + i * RowLayout.ROW_SIZE, batch.get(i));
+        }
+        ByteBuffer payload = pending.duplicate();
+        payload.limit(rows + length).position(rows);
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        pending.putInt(entry, length).putInt(entry + 4, (int) crc.getValue());
+        pending.position(rows + length);
+        for (int i = 0; i < batch.size(); i++) {
+            data.appendRow(pending, rows + i * RowLayout.ROW_SIZE);
+            aggregates.add(batch.get(i));
+            indexRow(idKey(batch.get(i).getId()), data.size() - 1);
+        }
+        appendedLsn += ENTRY_HEADER + length;
+    }
+
+    /**
+     * @return records of the batch whose ID is neither stored nor repeated
+     *         earlier in the batch, plus those without an ID
+     */
+    private List<PassengerRecord> unseen(List<PassengerRecord> batch) {
+        List<PassengerRecord> fresh = new ArrayList<>(batch.size());
+        Set<Object> batchKeys = new HashSet<>();
+        for (PassengerRecord r : batch) {
+            Object key = idKey(r.getId());
+            if (key == null || (!isStored(key) && batchKeys.add(key))) {
+                fresh.add(r);
+            }
+        }
+        return fresh;
+    }
+
+    /** @return index key of an ID: its UpsertDataset.numericKey, else the upper-cased ID; null without an ID */
+    private static Object idKey(String id) {
+        long key = UpsertDataset.numericKey(id);
+        if (key != 0) return key;
+        return id == null || id.isEmpty() ? null : id.toUpperCase(Locale.ROOT);
+    }
+
+    private boolean isStored(Object key) {
+        return key instanceof Long ? index.containsKey((Long) key) : otherIds.containsKey(key);
+    }
+
+    /** Records the row of an ID; a row that repeats a stored ID (written before IDs were checked) is not indexed. */
+    private void indexRow(Object key, int row) {
+        if (key == null || isStored(key)) return;
+        if (key instanceof Long) index.put((Long) key, row);
+        else otherIds.put((String) key, row);
+    }
+
+    /** Grows the pending buffer to take another entry. */
+    private void reserve(int bytes) {
+        if (pending.remaining() >= bytes) return;
+        ByteBuffer grown = ByteBuffer.allocateDirect(Math.max(pending.capacity() * 2, pending.position() + bytes))
+            .order(ORDER);
+        pending.flip();
+        grown.put(pending);
+        pending = grown;
+    }
+
+    /**
+     * Makes the log durable up to an offset. Whoever gets the lock first
+     * writes and forces every pending entry, so appenders waiting behind
+     * it usually find their entry already on disk. A failure is latched:
+     * the swapped-out buffer is not returned, and no later call writes.
+     */
+    private void commit(long lsn) throws IOException {
+        synchronized (flushLock) {
+            if (durableLsn >= lsn) return;
+            checkHealthy();
+            ByteBuffer out;
+            long end;
+            synchronized (this) {
+                out = pending;
+                pending = spare;
+                end = appendedLsn;
+            }
+            try {
+                if (segment.position() >= segmentBytes) {
+                    segment.close();
+                    openSegment(durableLsn, 0);
+                }
+                out.flip();
+                while (out.hasRemaining()) {
+                    segment.write(out);
+                }
+                segment.force(false);
+            } catch (IOException e) {
+                failure = e;
+                throw e;
+            } catch (RuntimeException e) {
+                failure = new IOException("Log write failed", e);
+                throw e;
+            }
+            syncs++;
+            out.clear();
+            spare = out;
+            durableLsn = end;
+        }
+    }
+
+    /**
+     * Writes the rows added since the last checkpoint and the current
+     * totals to disk, then deletes log segments that are no longer needed.
+     * Runs automatically every checkpointRows rows.
+     * @throws IOException if the checkpoint cannot be written
+     */
+    public void checkpoint() throws IOException {
+        synchronized (checkpointLock) {
+            int from = checkpointedRows;
+            int rows;
+            long lsn;
+            ByteBuffer added;
+            ByteArrayOutputStream totals = new ByteArrayOutputStream();
+            synchronized (this) {
+                checkHealthy();
+                checkOpen();
+                rows = data.size();
+                lsn = appendedLsn;
+                if (lsn == checkpointLsn) return;
+                aggregates.writeTo(new DataOutputStream(totals));
+                added = ByteBuffer.allocateDirect((rows - from) * RowLayout.ROW_SIZE).order(ORDER);
+                for (int i = from; i < rows; i++) {
+                    RowLayout.copy(data.chunk(i / OffHeapDataset.CHUNK_ROWS),
+                        (i % OffHeapDataset.CHUNK_ROWS) * RowLayout.ROW_SIZE, added, (i - from) * RowLayout.ROW_SIZE);
+                }
+            }
+            // The log must reach lsn before the checkpoint points past it
+            commit(lsn);
+            writeFully(rowsFile, added, BinaryRecordFile.HEADER_SIZE + (long) from * RowLayout.ROW_SIZE);
+            rowsFile.force(false);
+
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(CHECKPOINT_MAGIC);
+            out.writeInt(rows);
+            out.writeLong(lsn);
+            totals.writeTo(out);
+            Path tmp = dir.resolve(CHECKPOINT_FILE + ".tmp");
+            try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                writeFully(ch, ByteBuffer.wrap(bytes.toByteArray()), 0);
+                ch.force(true);
+            }
+            Files.move(tmp, dir.resolve(CHECKPOINT_FILE), StandardCopyOption.ATOMIC_MOVE,
+                StandardCopyOption.REPLACE_EXISTING);
+            syncDirectory();
+            checkpointedRows = rows;
+            checkpointLsn = lsn;
+            checkpoints++;
+
+            synchronized (flushLock) {
+                Map<Long, Path> covered = segments.headMap(segments.floorKey(lsn));
+                for (Path old : covered.values()) {
+                    Files.deleteIfExists(old);
+                }
+                covered.clear();
+            }
+        }
+    }
+
+    /** Makes file creations and renames in the directory durable, where the platform allows it. */
+    private void syncDirectory() {
+        try (FileChannel ch = FileChannel.open(dir, StandardOpenOption.READ)) {
+            ch.force(true);
+        } catch (IOException e) {
+            // Not supported everywhere (e.g. Windows); the file data itself is forced
+        }
+    }
+
+    /** @return number of rows */
+    public synchronized int size() {
+        checkOpen();
+        return data.size();
+    }
+
+    /** @return record decoded from row i */
+    public synchronized PassengerRecord get(int i) {
+        checkOpen();
+        return data.get(i);
+    }
+
+    /**
+     * Rows appended so far, for analysis with DataProcessor while appends
+     * go on. The snapshot shares the row buffers and does not see later appends.
+     * It stays readable after this store is closed, and keeps the rows'
+     * direct memory allocated until it is unreachable.
+     * @return read-only off-heap dataset of the current rows
+     */
+    public synchronized OffHeapDataset snapshot() {
+        checkOpen();
+        return data.snapshot();
+    }
+
+    /** @return totals over all rows; read them while no appends are running */
+    public synchronized RunningAggregates getAggregates() {
+        checkOpen();
+        return aggregates;
+    }
+
+    /** @return records skipped by append() since open() because their ID was already stored */
+    public synchronized long getDuplicateCount() {
+        return duplicates;
+    }
+
+    /** @return directory holding the files */
+    public Path getDirectory() {
+        return dir;
+    }
+
+    /** @return log bytes on disk, counted from the start of the dataset */
+    public long getDurableOffset() {
+        return durableLsn;
+    }
+
+    /** @return number of log forces; fewer than batches when appends were grouped */
+    public long getSyncCount() {
+        synchronized (flushLock) {
+            return syncs;
+        }
+    }
+
+    /** @return rows held in the latest checkpoint */
+    public int getCheckpointedRows() {
+        return checkpointedRows;
+    }
+
+    /** @return checkpoints written since open() */
+    public long getCheckpointCount() {
+        synchronized (checkpointLock) {
+            return checkpoints;
+        }
+    }
+
+    /** @return rows replayed from the log by open() */
+    public long getReplayedRows() {
+        return replayedRows;
+    }
+
+    /** @return time open() took to load the checkpoint and replay the log */
+    public long getRecoveryNanos() {
+        return recoveryNanos;
+    }
+
+    /** @return number of log segments on disk */
+    public int getSegmentCount() {
+        synchronized (flushLock) {
+            return segments.size();
+        }
+    }
+
+    /**
+     * Writes a final checkpoint, so the next open() has nothing to
+     * replay, and closes the files. After a failed log write only the
+     * files are closed.
+     * @throws IOException if the checkpoint cannot be written, or a log write failed earlier
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (closed) return;
+        }
+        try {
+            checkHealthy();
+            checkpoint();
+        } finally {
+            synchronized (this) {
+                closed = true;
+                data.close();
+            }
+            closeFiles();
+        }
+    }
+
+    private void closeFiles() throws IOException {
+        synchronized (flushLock) {
+            if (segment != null) segment.close();
+        }
+        synchronized (checkpointLock) {
+            if (rowsFile != null) rowsFile.close();
+        }
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("Dataset is closed");
+        }
+        if (failure != null) {
+            throw new IllegalStateException("Log write failed; reopen the dataset to recover", failure);
+        }
+    }
+
+    private void checkHealthy() throws IOException {
+        if (failure != null) {
+            throw new IOException("Log write failed; reopen the dataset to recover", failure);
+        }
+    }
+
+    private static void readFully(FileChannel ch, ByteBuffer buf, long position) throws IOException {
+        while (buf.hasRemaining()) {
+            if (ch.read(buf, position + buf.position()) < 0) {
+                throw new EOFException("Unexpected end of file");
+            }
+        }
+        buf.flip();
+    }
+
+    private static void writeFully(FileChannel ch, ByteBuffer buf, long position) throws IOException {
+        long pos = position;
+        while (buf.hasRemaining()) {
+            pos += ch.write(buf, pos);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package processor;
+
+/**
+ * Approximate answer from ApproximateProcessor: a point estimate with its
+ * standard error and a 95% confidence interval.
+ *
+ * @author IT221 Student
+ * @version 1.0
+ */
+public class Estimate {
+
+    /** Two-sided 95% normal quantile. */
+    public static final double Z_95 = 1.959964;
+
+    private final double value;
+    private final double standardError;
+    private final long sampleRows;
+    private final long population;
+
+    /**
+     * @param value point estimate
+     * @param standardError standard error of the estimate (0 if exact, NaN if unknown)
+     * @param sampleRows sample rows examined
+     * @param population rows the estimate stands for
+     */
+    public Estimate(double value, double standardError, long sampleRows, long population) {
+        this.value = value;
+        this.standardError = standardError;
+        this.sampleRows = sampleRows;
+        this.population = population;
+    }
+
+    /** @return point estimate */
+    public double getValue() { return value; }
+
+    /** @return standard error */
+    public double getStandardError() { return standardError; }
+
+    /** @return half-width of the 95% confidence interval */
+    public double getMargin() { return Z_95 * standardError; }
+
+    /** @return lower end of the 95% confidence interval */
+    public double getLower() { return value - getMargin(); }
+
+    /** @return upper end of the 95% confidence interval */
+    public double getUpper() { return value + getMargin(); }
+
+    /** @return sample rows examined */
+    public long getSampleRows() { return sampleRows; }
+
+    /** @return rows the estimate stands for */
+    public long getPopulation() { return population; }
+
+    /** @return true if the sample covered the population, so there is no sampling error */
+    public boolean isExact() { return standardError == 0; }
+
+    /** @return estimate scaled by a constant, e.g. a proportion into a count */
+    public Estimate scale(double factor) {
+        return new Estimate(value * factor, standardError * Math.abs(factor), sampleRows, population);
+    }
+
+    @Override
+    public String toString() {
+        if (Double.isNaN(standardError)) {
+            return String.format("%.4f (error unknown, %d rows)", value, sampleRows);
+        }
+        return String.format("%.4f +/- %.4f (95%%, %d of %d rows)", value, getMargin(), sampleRows, population);
+    }
+}
@@ -0,0 +1,207 @@
+package processor;
+
+import model.PassengerRecord;
+import model.RecordCursor;
+import model.RowLayout;
+import util.CSVReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Passenger records stored outside the Java heap as fixed-width rows
+ * (see RowLayout) in direct buffers of CHUNK_ROWS rows each.
+ * The heap only holds one small buffer object per chunk, so the garbage
+ * collector has almost nothing to trace however many rows are loaded.
+ *
+ * DataProcessor scans the rows in place through cursor() and decodes a
+ * record only for results:
+ * <pre>
+ * try (OffHeapDataset data = OffHeapDataset.load(new CSVReader(path))) {
+ *     DataProcessor processor = new DataProcessor(data);
+ *     ...
+ * }
+ * </pre>
+ *
+ * @author IT221 Student
+ * @version 1.0
+ */
+public class OffHeapDataset implements AutoCloseable {
+
+    /** Rows per direct buffer. */
+    public static final int CHUNK_ROWS = 1 << 16;
+
+    private List<ByteBuffer> chunks = new ArrayList<>();
+    private int size;
+    private long rejected;
+    private boolean readOnly;
+
+    /**
+     * Loads every record of a CSV file; rows that do not fit the
+     * fixed-width layout are skipped and counted.
+     * @param reader CSV source
+     * @return loaded dataset
+     * @throws IOException if file cannot be read
+     */
+    public static OffHeapDataset load(CSVReader reader) throws IOException {
+        OffHeapDataset data = new OffHeapDataset();
+        try {
+            reader.forEachRecord(r -> {
+                if (!data.tryAppend(r)) data.rejected++;
+            });
+        } catch (IOException | RuntimeException e) {
+            data.close();
+            throw e;
+        }
+        return data;
+    }
+
+    /**
+     * Appends one record.
+     * @throws IllegalArgumentException if the record does not fit the layout
+     */
+    public void append(PassengerRecord r) {
+        if (!tryAppend(r)) {
+            throw new IllegalArgumentException("Record does not fit row layout: " + r);
+        }
+    }
+
+    private boolean tryAppend(PassengerRecord r) {
+        try {
+            RowLayout.write(nextChunk(), (size % CHUNK_ROWS) * RowLayout.ROW_SIZE, r);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        size++;
+        return true;
+    }
+
+    /** Appends a RowLayout row copied from another buffer, without decoding it. */
+    void appendRow(ByteBuffer src, int offset) {
+        RowLayout.copy(src, offset, nextChunk(), (size % CHUNK_ROWS) * RowLayout.ROW_SIZE);
+        size++;
+    }
+
+    /** @return chunk that receives the next row, allocated if needed */
+    private ByteBuffer nextChunk() {
+        checkOpen();
+        if (readOnly) {
+            throw new IllegalStateException("Snapshot is read-only");
+        }
+        int chunk = size / CHUNK_ROWS;
+        if (chunk == chunks.size()) {
+            chunks.add(ByteBuffer.allocateDirect(CHUNK_ROWS * RowLayout.ROW_SIZE)
+                .order(ByteOrder.nativeOrder()));
+        }
+        return chunks.get(chunk);
+    }
+
+    /**
+     * Read-only dataset of the rows stored so far, sharing their buffers.
+     * Rows are never changed once appended, so later appends to this
+     * dataset do not show through; a DataProcessor can analyze the
+     * snapshot while appends go on. Take the snapshot on the appending
+     * thread, or under the lock that guards the appends.
+     * Closing either dataset does not affect the other, and the shared
+     * direct memory stays allocated while either is reachable (see close()).
+     * @return snapshot of the current rows
+     */
+    public OffHeapDataset snapshot() {
+        checkOpen();
+        OffHeapDataset view = new OffHeapDataset();
+        view.chunks = new ArrayList<>(chunks);
+        view.size = size;
+        view.readOnly = true;
+        return view;
+    }
+
+    /** @return number of stored rows */
+    public int size() {
+        return size;
+    }
+
+    /** @return rows skipped by load() because they did not fit the layout */
+    public long getRejectedRows() {
+        return rejected;
+    }
+
+    /** @return bytes reserved outside the heap */
+    public long getOffHeapBytes() {
+        return chunks == null ? 0 : (long) chunks.size() * CHUNK_ROWS * RowLayout.ROW_SIZE;
+    }
+
+    /** @return record decoded from row i */
+    public PassengerRecord get(int i) {
+        checkOpen();
+        if (i < 0 || i >= size) {
+            throw new IndexOutOfBoundsException("Row " + i + " of " + size);
+        }
+        return RowLayout.read(chunks.get(i / CHUNK_ROWS), (i % CHUNK_ROWS) * RowLayout.ROW_SIZE);
+    }
+
+    /** @return buffer holding the given chunk, for direct field access via RowLayout */
+    public ByteBuffer chunk(int index) {
+        checkOpen();
+        return chunks.get(index);
+    }
+
+    /** @return number of allocated chunks */
+    public int chunkCount() {
+        checkOpen();
+        return chunks.size();
+    }
+
+    /**
+     * Cursor reading the rows in place; nothing is decoded until asked for.
+     * @return new cursor before the first row
+     */
+    public RecordCursor cursor() {
+        checkOpen();
+        return RecordCursor.over(chunks, CHUNK_ROWS, size);
+    }
+
+    /**
+     * Read-only list view; each get() decodes a short-lived record.
+     * @return random-access list of all rows
+     */
+    public List<PassengerRecord> asList() {
+        return new RowList();
+    }
+
+    /**
+     * Drops this dataset's references to its buffers; it and its list views
+     * are unusable afterwards. Java 11 has no supported way to free a
+     * direct buffer, so the memory is not released here: it goes back to
+     * the system when the garbage collector reclaims the buffers, which
+     * happens only once this dataset and every snapshot sharing them are
+     * unreachable. getOffHeapBytes() of a closed dataset is 0 even while
+     * snapshots keep the memory in use.
+     */
+    @Override
+    public void close() {
+        chunks = null;
+        size = 0;
+    }
+
+    private void checkOpen() {
+        if (chunks == null) {
+            throw new IllegalStateException("Dataset is closed");
+        }
+    }
+
+    private class RowList extends AbstractList<PassengerRecord> implements RandomAccess {
+        @Override
+        public PassengerRecord get(int index) {
+            return OffHeapDataset.this.get(index);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
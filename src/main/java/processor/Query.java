@@ -0,0 +1,91 @@
+package processor;
+
+import model.RecordField;
+import java.lang.invoke.MethodHandle;
+import java.util.Arrays;
+
+/**
+ * Ad-hoc query: a Condition plus optional projection and aggregation.
+ * The first execution compiles the query into one method handle scan loop
+ * (see QueryCompiler); later executions reuse it.
+ * 
+ * <pre>
+ * Query q = Query.where(Condition.eqIgnoreCase(RecordField.TRAVEL_CLASS, "Eco")
+ *                         .and(Condition.between(RecordField.AGE, 30, 40)))
+ *                .aggregate(RecordField.FLIGHT_DISTANCE)
+ *                .select(RecordField.ID, RecordField.AGE).limit(10);
+ * QueryResult result = processor.query(q);
+ * </pre>
+ *
+ * @author IT221 Student
+ * @version 1.0
+ */
+public class Query {
+
+    private final Condition condition;
+    private RecordField[] columns = new RecordField[0];
+    private int rowLimit = Integer.MAX_VALUE;
+    private RecordField aggregateField;
+    private volatile MethodHandle compiled;
+
+    private Query(Condition condition) {
+        this.condition = condition;
+    }
+
+    /** @return query over records matching the condition */
+    public static Query where(Condition condition) {
+        return new Query(condition);
+    }
+
+    /** @return query over all records */
+    public static Query all() {
+        return new Query(Condition.all());
+    }
+
+    /** Sets the fields returned for each matching record. */
+    public Query select(RecordField... fields) {
+        columns = fields.clone();
+        compiled = null;
+        return this;
+    }
+
+    /** Caps the number of projected rows; counts and aggregates still cover all matches. */
+    public Query limit(int maxRows) {
+        if (maxRows < 0) throw new IllegalArgumentException("Negative limit: " + maxRows);
+        rowLimit = maxRows;
+        compiled = null;
+        return this;
+    }
+
+    /** Sets the numeric field to sum/average/min/max over matching records. */
+    public Query aggregate(RecordField field) {
+        if (!field.isNumeric()) {
+            throw new IllegalArgumentException(field + " is not a numeric field");
+        }
+        aggregateField = field;
+        compiled = null;
+        return this;
+    }
+
+    public Condition getCondition() { return condition; }
+    public RecordField[] getColumns() { return columns.clone(); }
+    public RecordField getAggregateField() { return aggregateField; }
+    public int getLimit() { return rowLimit; }
+
+    /** @return compiled scan loop of type (RecordCursor)QueryResult */
+    MethodHandle compiled() {
+        MethodHandle mh = compiled;
+        if (mh == null) {
+            mh = QueryCompiler.compile(this);
+            compiled = mh;
+        }
+        return mh;
+    }
+
+    @Override
+    public String toString() {
+        return "WHERE " + condition
+            + (aggregateField != null ? " AGGREGATE " + aggregateField : "")
+            + (columns.length > 0 ? " SELECT " + Arrays.toString(columns) : "");
+    }
+}
@@ -0,0 +1,130 @@
+package processor;
+
+import model.RecordCursor;
+import model.RecordField;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+/**
+ * Compiles a Query into a single method handle scan loop.
+ * Field getters, the condition tree, projection and aggregation are all
+ * composed into a MethodHandles.countedLoop that moves a RecordCursor over
+ * the rows, so the JIT sees one specialized loop instead of interpreting
+ * the query per row, and off-heap rows are read in place rather than
+ * decoded into a record each.
+ *
+ * @author IT221 Student
+ * @version 1.0
+ */
+final class QueryCompiler {
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+    private static final MethodHandle CURSOR_SIZE;
+    private static final MethodHandle NEXT_ROW;
+    private static final MethodHandle NEW_RESULT;
+    private static final MethodHandle ACCEPT;
+    private static final MethodHandle ACCEPT_ROW;
+    private static final MethodHandle WANTS_ROW;
+
+    static {
+        try {
+            CURSOR_SIZE = LOOKUP.findVirtual(RecordCursor.class, "size", MethodType.methodType(int.class));
+            NEXT_ROW = LOOKUP.findStatic(QueryCompiler.class, "nextRow",
+                MethodType.methodType(RecordCursor.class, RecordCursor.class));
+            NEW_RESULT = LOOKUP.findConstructor(QueryResult.class,
+                MethodType.methodType(void.class, RecordField[].class, RecordField.class, int.class));
+            ACCEPT = LOOKUP.findStatic(QueryResult.class, "accept",
+                MethodType.methodType(QueryResult.class, QueryResult.class, double.class));
+            ACCEPT_ROW = LOOKUP.findStatic(QueryResult.class, "acceptRow",
+                MethodType.methodType(QueryResult.class, QueryResult.class, double.class, Object[].class));
+            WANTS_ROW = LOOKUP.findStatic(QueryResult.class, "wantsRow",
+                MethodType.methodType(boolean.class, QueryResult.class));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private QueryCompiler() {}
+
+    /** @return getter of type (RecordCursor)String/int/double */
+    static MethodHandle getter(RecordField field) {
+        return getter(RecordCursor.class, field);
+    }
+
+    /**
+     * @param owner RecordCursor or PassengerRecord, which share the getter names
+     * @return getter of type (owner)String/int/double
+     */
+    static MethodHandle getter(Class<?> owner, RecordField field) {
+        Class<?> type;
+        switch (field.getType()) {
+            case INT: type = int.class; break;
+            case DOUBLE: type = double.class; break;
+            default: type = String.class;
+        }
+        try {
+            return LOOKUP.findVirtual(owner, field.getGetterName(), MethodType.methodType(type));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("No getter for " + field, e);
+        }
+    }
+
+    /** @return getter of type (RecordCursor)double */
+    static MethodHandle numericGetter(RecordField field) {
+        return getter(field).asType(MethodType.methodType(double.class, RecordCursor.class));
+    }
+
+    /** @return scan loop of type (RecordCursor)QueryResult; the cursor must start before the first row */
+    static MethodHandle compile(Query query) {
+        RecordField[] columns = query.getColumns();
+        RecordField aggregate = query.getAggregateField();
+        
+        // (RecordCursor)double: value fed to the aggregate
+        MethodHandle value = aggregate != null
+            ? numericGetter(aggregate)
+            : MethodHandles.dropArguments(MethodHandles.constant(double.class, 0.0), 0, RecordCursor.class);
+        
+        // (QueryResult, RecordCursor)QueryResult: handle one match
+        MethodHandle accept = MethodHandles.filterArguments(ACCEPT, 1, value);
+        if (columns.length > 0) {
+            MethodHandle withRow = MethodHandles.filterArguments(ACCEPT_ROW, 1, value, projector(columns));
+            withRow = MethodHandles.permuteArguments(withRow,
+                MethodType.methodType(QueryResult.class, QueryResult.class, RecordCursor.class), 0, 1, 1);
+            accept = MethodHandles.guardWithTest(
+                MethodHandles.dropArguments(WANTS_ROW, 1, RecordCursor.class), withRow, accept);
+        }
+        
+        // (QueryResult, RecordCursor)QueryResult: test, then accept or pass through
+        MethodHandle test = MethodHandles.dropArguments(query.getCondition().compile(), 0, QueryResult.class);
+        MethodHandle skip = MethodHandles.dropArguments(
+            MethodHandles.identity(QueryResult.class), 1, RecordCursor.class);
+        MethodHandle step = MethodHandles.guardWithTest(test, accept, skip);
+        
+        // Loop body (QueryResult, int, RecordCursor)QueryResult: step over the next row
+        MethodHandle body = MethodHandles.collectArguments(step, 1, NEXT_ROW);
+        body = MethodHandles.dropArguments(body, 1, int.class);
+        
+        MethodHandle init = MethodHandles.dropArguments(
+            MethodHandles.insertArguments(NEW_RESULT, 0, columns, aggregate, query.getLimit()), 0, RecordCursor.class);
+        return MethodHandles.countedLoop(CURSOR_SIZE, init, body);
+    }
+
+    /** @return the cursor, moved to the next row; the loop runs once per row */
+    private static RecordCursor nextRow(RecordCursor cursor) {
+        cursor.next();
+        return cursor;
+    }
+
+    /** @return handle of type (RecordCursor)Object[] building one projected row */
+    private static MethodHandle projector(RecordField[] columns) {
+        MethodHandle[] getters = new MethodHandle[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            getters[i] = getter(columns[i]).asType(MethodType.methodType(Object.class, RecordCursor.class));
+        }
+        MethodHandle collect = MethodHandles.identity(Object[].class).asCollector(Object[].class, columns.length);
+        MethodHandle row = MethodHandles.filterArguments(collect, 0, getters);
+        return MethodHandles.permuteArguments(row,
+            MethodType.methodType(Object[].class, RecordCursor.class), new int[columns.length]);
+    }
+}
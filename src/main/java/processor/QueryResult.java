@@ -0,0 +1,79 @@
+package processor;
+
+import model.RecordField;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Result of a Query: match count, aggregate over one numeric field and
+ * projected rows. Filled in by the compiled scan loop.
+ *
+ * @author IT221 Student
+ * @version 1.0
+ */
+public class QueryResult {
+
+    private final RecordField[] columns;
+    private final RecordField aggregateField;
+    private final int rowLimit;
+    private final List<Object[]> rows;
+    private long count;
+    private double sum;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    QueryResult(RecordField[] columns, RecordField aggregateField, int rowLimit) {
+        this.columns = columns;
+        this.aggregateField = aggregateField;
+        this.rowLimit = rowLimit;
+        this.rows = columns.length > 0 ? new ArrayList<>() : Collections.emptyList();
+    }
+
+    /** Scan loop callback for a match without a projected row. */
+    static QueryResult accept(QueryResult acc, double value) {
+        acc.count++;
+        acc.sum += value;
+        if (value < acc.min) acc.min = value;
+        if (value > acc.max) acc.max = value;
+        return acc;
+    }
+
+    /** Scan loop callback for a match with a projected row. */
+    static QueryResult acceptRow(QueryResult acc, double value, Object[] row) {
+        acc.rows.add(row);
+        return accept(acc, value);
+    }
+
+    /** @return true while projected rows are still being collected */
+    static boolean wantsRow(QueryResult acc) {
+        return acc.rows.size() < acc.rowLimit;
+    }
+
+    /** @return number of matching records */
+    public long getCount() { return count; }
+
+    /** @return aggregated field, or null if the query had none */
+    public RecordField getAggregateField() { return aggregateField; }
+    public double getSum() { return sum; }
+    public double getAverage() { return count > 0 ? sum / count : Double.NaN; }
+    public double getMin() { return count > 0 ? min : Double.NaN; }
+    public double getMax() { return count > 0 ? max : Double.NaN; }
+
+    /** @return projected columns */
+    public RecordField[] getColumns() { return columns.clone(); }
+
+    /** @return projected rows, one value per selected column */
+    public List<Object[]> getRows() { return Collections.unmodifiableList(rows); }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Matches: ").append(count);
+        if (aggregateField != null && count > 0) {
+            sb.append(String.format(", %s sum=%.2f avg=%.2f min=%.2f max=%.2f",
+                aggregateField, sum, getAverage(), min, max));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,179 @@
+package processor;
+
+import model.PassengerRecord;
+import model.RecordCursor;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Lazy, read-only view of the records matching a filter.
+ * Nothing is copied: iteration scans the source on demand, and
+ * skip/limit return new views for pagination. A view built from chunks
+ * scans only those chunks; getScanStats() tells how many were skipped.
+ *
+ * The filter is tested on a RecordCursor, so rows are only turned into
+ * PassengerRecords when a match is iterated; count() materializes nothing.
+ *
+ * @author IT221 Student
+ * @version 1.0
+ */
+public class RecordView implements Iterable<PassengerRecord> {
+
+    private final Supplier<RecordCursor> cursors;
+    // Row ranges to scan as {start, end} pairs, in order
+    private final int[] ranges;
+    private final Predicate<RecordCursor> filter;
+    private final LongSupplier indexedCount;
+    private final ScanStats scanStats;
+    private final long skip;
+    private final long limit;
+
+    /**
+     * @param source records to scan
+     * @param filter match condition
+     * @param indexedCount total number of matches taken from an index,
+     *                     or null if counting requires a scan
+     */
+    public RecordView(List<PassengerRecord> source, Predicate<PassengerRecord> filter,
+                      LongSupplier indexedCount) {
+        this(() -> RecordCursor.over(source), new int[] {0, source.size()}, c -> filter.test(c.toRecord()),
+            indexedCount, new ScanStats(1, 1, source.size(), source.size()), 0, Long.MAX_VALUE);
+    }
+
+    /**
+     * @param cursors creates a cursor over the whole source, one per scan
+     * @param ranges rows that may hold matches, as {start, end} pairs in order
+     * @param filter match condition, tested at the cursor's current row
+     * @param indexedCount total number of matches, or null if counting requires a scan
+     * @param scanStats chunks scanned out of the whole source
+     */
+    public RecordView(Supplier<RecordCursor> cursors, int[] ranges, Predicate<RecordCursor> filter,
+                      LongSupplier indexedCount, ScanStats scanStats) {
+        this(cursors, ranges.clone(), filter, indexedCount, scanStats, 0, Long.MAX_VALUE);
+    }
+
+    private RecordView(Supplier<RecordCursor> cursors, int[] ranges, Predicate<RecordCursor> filter,
+                       LongSupplier indexedCount, ScanStats scanStats, long skip, long limit) {
+        this.cursors = cursors;
+        this.ranges = ranges;
+        this.filter = filter;
+        this.indexedCount = indexedCount;
+        this.scanStats = scanStats;
+        this.skip = skip;
+        this.limit = limit;
+    }
+
+    /** @return view without the first n matches */
+    public RecordView skip(long n) {
+        if (n < 0) throw new IllegalArgumentException("Negative skip: " + n);
+        long newLimit = limit == Long.MAX_VALUE ? limit : Math.max(0, limit - n);
+        return new RecordView(cursors, ranges, filter, indexedCount, scanStats, skip + n, newLimit);
+    }
+
+    /** @return view of at most n matches */
+    public RecordView limit(long n) {
+        if (n < 0) throw new IllegalArgumentException("Negative limit: " + n);
+        return new RecordView(cursors, ranges, filter, indexedCount, scanStats, skip, Math.min(limit, n));
+    }
+
+    /**
+     * @param page zero-based page number
+     * @param pageSize matches per page
+     * @return view of one page of matches
+     */
+    public RecordView page(int page, int pageSize) {
+        return skip((long) page * pageSize).limit(pageSize);
+    }
+
+    /**
+     * Counts matches in this view. Uses the index when one is available,
+     * otherwise scans and stops as soon as the limit is reached.
+     * @return number of records this view would iterate
+     */
+    public long count() {
+        if (indexedCount != null) {
+            long total = indexedCount.getAsLong();
+            return Math.max(0, Math.min(limit, total - skip));
+        }
+        long wanted = limit == Long.MAX_VALUE ? Long.MAX_VALUE : skip + limit;
+        return Math.max(0, Math.min(limit, countMatches(wanted) - skip));
+    }
+
+    /** @return matches in the source, scanning no further than the first max */
+    private long countMatches(long max) {
+        RecordCursor c = cursors.get();
+        long n = 0;
+        for (int i = 0; i < ranges.length && n < max; i += 2) {
+            for (int row = ranges[i]; row < ranges[i + 1] && n < max; row++) {
+                if (filter.test(c.moveTo(row))) n++;
+            }
+        }
+        return n;
+    }
+
+    /** @return chunks this view scans out of the whole source */
+    public ScanStats getScanStats() {
+        return scanStats;
+    }
+
+    /** @return true if nothing matches */
+    public boolean isEmpty() {
+        return limit == 0 || countMatches(skip + 1) <= skip;
+    }
+
+    /** @return matches copied into a new list */
+    public List<PassengerRecord> toList() {
+        List<PassengerRecord> result = new ArrayList<>();
+        for (PassengerRecord r : this) {
+            result.add(r);
+        }
+        return result;
+    }
+
+    @Override
+    public Iterator<PassengerRecord> iterator() {
+        return new Iterator<PassengerRecord>() {
+            private final RecordCursor c = cursors.get();
+            private int range = 0;
+            private int row = ranges.length > 0 ? ranges[0] : 0;
+            private long skipped = 0;
+            private long returned = 0;
+            private PassengerRecord next;
+
+            @Override
+            public boolean hasNext() {
+                if (next != null) return true;
+                if (returned >= limit) return false;
+                while (range < ranges.length) {
+                    if (row >= ranges[range + 1]) {
+                        range += 2;
+                        if (range < ranges.length) row = ranges[range];
+                        continue;
+                    }
+                    if (!filter.test(c.moveTo(row++))) continue;
+                    if (skipped < skip) {
+                        skipped++;
+                        continue;
+                    }
+                    next = c.toRecord();
+                    return true;
+                }
+                return false;
+            }
+
+            @Override
+            public PassengerRecord next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                PassengerRecord r = next;
+                next = null;
+                returned++;
+                return r;
+            }
+        };
+    }
+}
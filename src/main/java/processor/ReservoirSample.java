@@ -0,0 +1,90 @@
+package processor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Fixed-size uniform random sample of a stream (reservoir sampling,
+ * Algorithm R). After n offers every element has had the same chance
+ * capacity / n of being kept, whatever n turns out to be.
+ *
+ * The kept elements are shuffled before they are read, so any prefix
+ * of the sample is itself a uniform sample; ApproximateProcessor relies
+ * on this to trade sample size for latency.
+ *
+ * @author IT221 Student
+ * @version 1.0
+ * @param <T> element type
+ */
+public class ReservoirSample<T> {
+
+    private final int capacity;
+    private final Random random;
+    private final List<T> items;
+    private long seen;
+    private boolean shuffled = true;
+
+    /**
+     * @param capacity maximum number of kept elements
+     * @param random source of randomness
+     */
+    public ReservoirSample(int capacity, Random random) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        this.random = random;
+        this.items = new ArrayList<>(Math.min(capacity, 1 << 16));
+    }
+
+    /** Offers one element of the stream. */
+    public void offer(T item) {
+        seen++;
+        if (items.size() < capacity) {
+            items.add(item);
+        } else {
+            long slot = (long) (random.nextDouble() * seen);
+            if (slot < capacity) items.set((int) slot, item);
+        }
+        shuffled = false;
+    }
+
+    /** @return number of elements offered so far */
+    public long getSeen() {
+        return seen;
+    }
+
+    /** @return number of kept elements */
+    public int size() {
+        return items.size();
+    }
+
+    /** @return maximum number of kept elements */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @param i position in the sample
+     * @return kept element; sample order is random
+     */
+    public T get(int i) {
+        shuffle();
+        return items.get(i);
+    }
+
+    /** @return copy of the kept elements in random order */
+    public List<T> toList() {
+        shuffle();
+        return new ArrayList<>(items);
+    }
+
+    private void shuffle() {
+        if (!shuffled) {
+            Collections.shuffle(items, random);
+            shuffled = true;
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package processor;
+
+import model.PassengerRecord;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Totals that are kept up to date record by record. remove() undoes
+ * add(), so replacing a record costs two updates instead of a rescan of
+ * the dataset. Counts and integer sums are restored exactly; the delay
+ * sums are doubles, so fractional delays leave floating-point rounding
+ * behind. Non-finite delays (NaN, infinity) are left out of the delay
+ * sums, as if they were 0, so one bad value cannot poison them for good.
+ *
+ * @author IT221 Student
+ * @version 1.0
+ */
+public class RunningAggregates {
+
+    private long count;
+    private long satisfied;
+    private long ageSum;
+    private long distanceSum;
+    private double departureDelaySum;
+    private double arrivalDelaySum;
+    private final long[] ratingSums = new long[PassengerRecord.SERVICE_COUNT];
+    // Class name -> {count, satisfied}
+    private final Map<String, long[]> byClass = new HashMap<>();
+
+    /** Adds a record to the totals. */
+    public void add(PassengerRecord r) {
+        apply(r, 1);
+    }
+
+    /** Removes a record previously added. */
+    public void remove(PassengerRecord r) {
+        apply(r, -1);
+    }
+
+    /** Replaces one record's contribution with another's. */
+    public void replace(PassengerRecord oldRecord, PassengerRecord newRecord) {
+        apply(oldRecord, -1);
+        apply(newRecord, 1);
+    }
+
+    private void apply(PassengerRecord r, int sign) {
+        long bits = r.getPackedBits();
+        boolean sat = r.isSatisfied();
+        count += sign;
+        if (sat) satisfied += sign;
+        ageSum += sign * PassengerRecord.ageOf(bits);
+        distanceSum += sign * r.getFlightDistance();
+        departureDelaySum += sign * finite(r.getDepartureDelayInMinutes());
+        arrivalDelaySum += sign * finite(r.getArrivalDelayInMinutes());
+        for (int i = 0; i < ratingSums.length; i++) {
+            ratingSums[i] += sign * PassengerRecord.ratingOf(bits, i);
+        }
+        long[] cls = byClass.computeIfAbsent(r.getTravelClass(), k -> new long[2]);
+        cls[0] += sign;
+        if (sat) cls[1] += sign;
+        if (cls[0] == 0) byClass.remove(r.getTravelClass());
+    }
+
+    /** @return number of records */
+    public long getCount() { return count; }
+
+    /** @return number of satisfied passengers */
+    public long getSatisfiedCount() { return satisfied; }
+
+    /** @return satisfaction rate (0-100) */
+    public double getSatisfactionRate() { return percent(satisfied, count); }
+
+    /** @return average age */
+    public double getAverageAge() { return average(ageSum); }
+
+    /** @return average flight distance */
+    public double getAverageFlightDistance() { return average(distanceSum); }
+
+    /** @return average departure delay in minutes */
+    public double getAverageDepartureDelay() { return average(departureDelaySum); }
+
+    /** @return average arrival delay in minutes */
+    public double getAverageArrivalDelay() { return average(arrivalDelaySum); }
+
+    /** @return average rating per service, in DataProcessor.SERVICE_NAMES order */
+    public Map<String, Double> getAverageServiceRatings() {
+        Map<String, Double> avgs = new LinkedHashMap<>();
+        for (int i = 0; i < ratingSums.length; i++) {
+            avgs.put(DataProcessor.SERVICE_NAMES[i], average(ratingSums[i]));
+        }
+        return avgs;
+    }
+
+    /** @return record count by travel class */
+    public Map<String, Long> getTravelClassDistribution() {
+        Map<String, Long> dist = new HashMap<>();
+        byClass.forEach((cls, c) -> dist.put(cls, c[0]));
+        return dist;
+    }
+
+    /** @return satisfaction rate (0-100) by travel class */
+    public Map<String, Double> getSatisfactionRateByClass() {
+        Map<String, Double> rates = new HashMap<>();
+        byClass.forEach((cls, c) -> rates.put(cls, percent(c[1], c[0])));
+        return rates;
+    }
+
+    /** Writes the totals, e.g. into a checkpoint; readFrom() restores them. */
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeLong(count);
+        out.writeLong(satisfied);
+        out.writeLong(ageSum);
+        out.writeLong(distanceSum);
+        out.writeDouble(departureDelaySum);
+        out.writeDouble(arrivalDelaySum);
+        for (long sum : ratingSums) {
+            out.writeLong(sum);
+        }
+        out.writeInt(byClass.size());
+        for (Map.Entry<String, long[]> e : byClass.entrySet()) {
+            // Records without a class are counted under a null key
+            out.writeBoolean(e.getKey() != null);
+            if (e.getKey() != null) out.writeUTF(e.getKey());
+            out.writeLong(e.getValue()[0]);
+            out.writeLong(e.getValue()[1]);
+        }
+    }
+
+    /** @return totals written by writeTo() */
+    public static RunningAggregates readFrom(DataInput in) throws IOException {
+        RunningAggregates a = new RunningAggregates();
+        a.count = in.readLong();
+        a.satisfied = in.readLong();
+        a.ageSum = in.readLong();
+        a.distanceSum = in.readLong();
+        a.departureDelaySum = in.readDouble();
+        a.arrivalDelaySum = in.readDouble();
+        for (int i = 0; i < a.ratingSums.length; i++) {
+            a.ratingSums[i] = in.readLong();
+        }
+        int classes = in.readInt();
+        for (int i = 0; i < classes; i++) {
+            String cls = in.readBoolean() ? in.readUTF() : null;
+            a.byClass.put(cls, new long[] {in.readLong(), in.readLong()});
+        }
+        return a;
+    }
+
+    private static double finite(double delay) {
+        return Double.isFinite(delay) ? delay : 0;
+    }
+
+    private double average(double sum) {
+        return count == 0 ? 0 : sum / count;
+    }
+
+    private static double percent(long part, long total) {
+        return total == 0 ? 0 : part * 100.0 / total;
+    }
+}
@@ -0,0 +1,528 @@
+package processor;
+
+import model.PassengerRecord;
+import model.RecordCursor;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+/**
+ * Logistic regression predicting whether a passenger is satisfied from
+ * the 14 ratings, age, distance, delays and the categorical fields.
+ *
+ * Training copies the rows once into a float feature matrix, standardizes
+ * it and runs mini-batch SGD on several threads: each thread trains a copy
+ * of the weights on its own shard for one epoch, and the copies are
+ * averaged before the next epoch. Every HOLDOUT_EVERY-th row is held out
+ * to measure accuracy on rows the model has not seen.
+ *
+ * The trained weights are rescaled to the raw features, so scoring reads
+ * a RecordCursor and computes the score directly from the packed bits
+ * with no per-row allocation.
+ *
+ * @author IT221 Student
+ * @version 1.0
+ */
+public class SatisfactionModel {
+
+    /** Model inputs, in weight order. */
+    public static final String[] FEATURE_NAMES = {
+        "Inflight Wifi", "Time Convenient", "Online Booking", "Gate Location",
+        "Food and Drink", "Online Boarding", "Seat Comfort", "Entertainment",
+        "On-board Service", "Leg Room", "Baggage Handling", "Check-in Service",
+        "Inflight Service", "Cleanliness",
+        "Age", "Flight Distance (log)", "Departure Delay (log)", "Arrival Delay (log)",
+        "Male", "Loyal Customer", "Business Travel", "Business Class", "Eco Plus Class"
+    };
+
+    /** Number of model inputs. */
+    public static final int FEATURES = FEATURE_NAMES.length;
+
+    /** Passes over the training rows used by train(rows). */
+    public static final int DEFAULT_EPOCHS = 8;
+
+    /** Rows per gradient step. */
+    public static final int BATCH_SIZE = 128;
+
+    /** One row in this many is held out of training for evaluation. */
+    public static final int HOLDOUT_EVERY = 10;
+
+    private static final int AGE = 14;
+    private static final int DISTANCE = 15;
+    private static final int DEPARTURE_DELAY = 16;
+    private static final int ARRIVAL_DELAY = 17;
+    private static final int MALE = 18;
+    private static final int LOYAL = 19;
+    private static final int BUSINESS_TRAVEL = 20;
+    private static final int BUSINESS_CLASS = 21;
+    private static final int ECO_PLUS_CLASS = 22;
+
+    // Categorical codes (dictionary index + 1) behind the indicator features
+    private static final int MALE_CODE = 2;
+    private static final int LOYAL_CODE = 1;
+    private static final int BUSINESS_TRAVEL_CODE = 1;
+    private static final int BUSINESS_CLASS_CODE = 1;
+    private static final int ECO_PLUS_CLASS_CODE = 3;
+
+    private static final double LEARNING_RATE = 0.5;
+    private static final double L2 = 1e-5;
+
+    // Weights on raw features; the indicators are looked up by code instead
+    private final double[] weights = new double[FEATURES];
+    private final double bias;
+    private final double[] genderWeight = new double[8];
+    private final double[] customerWeight = new double[8];
+    private final double[] travelWeight = new double[8];
+    private final double[] classWeight = new double[8];
+    // Weights on standardized features, comparable across features
+    private final double[] standardized;
+
+    private final long trainingRows;
+    private final long holdoutRows;
+    private final long holdoutCorrect;
+    private final int epochs;
+    private final int threads;
+    private final long trainingNanos;
+    private final double loss;
+
+    private SatisfactionModel(double[] w, double b, double[] mean, double[] scale, long trainingRows,
+                              long holdoutRows, long holdoutCorrect, int epochs, int threads,
+                              long trainingNanos, double loss) {
+        this.standardized = w.clone();
+        double raw = b;
+        for (int j = 0; j < FEATURES; j++) {
+            weights[j] = w[j] * scale[j];
+            raw -= weights[j] * mean[j];
+        }
+        this.bias = raw;
+        genderWeight[MALE_CODE] = weights[MALE];
+        customerWeight[LOYAL_CODE] = weights[LOYAL];
+        travelWeight[BUSINESS_TRAVEL_CODE] = weights[BUSINESS_TRAVEL];
+        classWeight[BUSINESS_CLASS_CODE] = weights[BUSINESS_CLASS];
+        classWeight[ECO_PLUS_CLASS_CODE] = weights[ECO_PLUS_CLASS];
+        this.trainingRows = trainingRows;
+        this.holdoutRows = holdoutRows;
+        this.holdoutCorrect = holdoutCorrect;
+        this.epochs = epochs;
+        this.threads = threads;
+        this.trainingNanos = trainingNanos;
+        this.loss = loss;
+    }
+
+    /** Trains with the default epochs on all available processors, seed 42. */
+    public static SatisfactionModel train(Supplier<RecordCursor> rows) {
+        return train(rows, DEFAULT_EPOCHS, Runtime.getRuntime().availableProcessors(), 42);
+    }
+
+    /**
+     * @param rows creates a cursor over the labelled records, e.g. processor::cursor
+     * @param epochs passes over the training rows
+     * @param threads training threads, each with its own shard and weights
+     * @param seed shuffling seed, for repeatable models
+     * @return trained model
+     * @throws IllegalArgumentException if there are too few rows to train on
+     */
+    public static SatisfactionModel train(Supplier<RecordCursor> rows, int epochs, int threads, long seed) {
+        long start = System.nanoTime();
+        int n = rows.get().size();
+        int trainRows = n - n / HOLDOUT_EVERY;
+        if (n < HOLDOUT_EVERY) {
+            throw new IllegalArgumentException("Need at least " + HOLDOUT_EVERY + " records to train, got " + n);
+        }
+        if ((long) n * FEATURES > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many records for one feature matrix: " + n);
+        }
+        int workers = Math.max(1, Math.min(threads, trainRows / BATCH_SIZE));
+
+        // Training rows first, then the held-out rows
+        float[] x = new float[n * FEATURES];
+        float[] y = new float[n];
+        RecordCursor c = rows.get();
+        int nextTrain = 0, nextHoldout = trainRows;
+        while (c.next()) {
+            int row = c.getPosition() % HOLDOUT_EVERY == HOLDOUT_EVERY - 1 ? nextHoldout++ : nextTrain++;
+            encode(c.getPackedBits(), c.getFlightDistance(), c.getDepartureDelayInMinutes(),
+                c.getArrivalDelayInMinutes(), x, row * FEATURES);
+            y[row] = c.isSatisfied() ? 1 : 0;
+        }
+
+        double[] mean = new double[FEATURES];
+        double[] scale = new double[FEATURES];
+        standardize(x, trainRows, n, mean, scale);
+
+        double[] w = new double[FEATURES + 1];
+        double loss = 0;
+        ExecutorService pool = pool(workers, "model-training");
+        try {
+            List<Shard> shards = new ArrayList<>();
+            for (int s = 0; s < workers; s++) {
+                shards.add(new Shard(x, y, (int) ((long) trainRows * s / workers),
+                    (int) ((long) trainRows * (s + 1) / workers), new Random(seed * 31 + s)));
+            }
+            for (int epoch = 0; epoch < epochs; epoch++) {
+                double rate = LEARNING_RATE / Math.sqrt(1 + epoch);
+                List<Future<Shard>> done = new ArrayList<>();
+                for (Shard shard : shards) {
+                    done.add(pool.submit(shard.epoch(w, rate)));
+                }
+                double[] sum = new double[FEATURES + 1];
+                loss = 0;
+                for (Future<Shard> f : done) {
+                    Shard shard = f.get();
+                    double share = (double) shard.size() / trainRows;
+                    for (int j = 0; j < sum.length; j++) {
+                        sum[j] += shard.weights[j] * share;
+                    }
+                    loss += shard.loss / trainRows;
+                }
+                w = sum;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Training interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Training failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+
+        long correct = 0;
+        for (int row = trainRows; row < n; row++) {
+            boolean predicted = dot(w, x, row * FEATURES) >= 0;
+            if (predicted == (y[row] == 1)) correct++;
+        }
+        double[] coefficients = new double[FEATURES];
+        System.arraycopy(w, 0, coefficients, 0, FEATURES);
+        return new SatisfactionModel(coefficients, w[FEATURES], mean, scale, trainRows, n - trainRows,
+            correct, epochs, workers, System.nanoTime() - start, loss);
+    }
+
+    /** Writes the raw features of one row into x at offset. */
+    private static void encode(long packed, int distance, double departureDelay, double arrivalDelay,
+                               float[] x, int offset) {
+        for (int i = 0; i < PassengerRecord.SERVICE_COUNT; i++) {
+            x[offset + i] = PassengerRecord.ratingOf(packed, i);
+        }
+        x[offset + AGE] = PassengerRecord.ageOf(packed);
+        x[offset + DISTANCE] = (float) logOrZero(distance);
+        x[offset + DEPARTURE_DELAY] = (float) logOrZero(departureDelay);
+        x[offset + ARRIVAL_DELAY] = (float) logOrZero(arrivalDelay);
+        x[offset + MALE] = PassengerRecord.genderCodeOf(packed) == MALE_CODE ? 1 : 0;
+        x[offset + LOYAL] = PassengerRecord.customerTypeCodeOf(packed) == LOYAL_CODE ? 1 : 0;
+        x[offset + BUSINESS_TRAVEL] = PassengerRecord.travelTypeCodeOf(packed) == BUSINESS_TRAVEL_CODE ? 1 : 0;
+        int cls = PassengerRecord.travelClassCodeOf(packed);
+        x[offset + BUSINESS_CLASS] = cls == BUSINESS_CLASS_CODE ? 1 : 0;
+        x[offset + ECO_PLUS_CLASS] = cls == ECO_PLUS_CLASS_CODE ? 1 : 0;
+    }
+
+    /** @return log(1 + v) for positive v, 0 for zero, negative or NaN */
+    private static double logOrZero(double v) {
+        return v > 0 ? Math.log1p(v) : 0;
+    }
+
+    /**
+     * Centers and scales every row by the training rows' mean and standard
+     * deviation; constant features are only centered.
+     */
+    private static void standardize(float[] x, int trainRows, int rows, double[] mean, double[] scale) {
+        double[] sum = new double[FEATURES];
+        double[] sumSq = new double[FEATURES];
+        for (int row = 0; row < trainRows; row++) {
+            int offset = row * FEATURES;
+            for (int j = 0; j < FEATURES; j++) {
+                double v = x[offset + j];
+                sum[j] += v;
+                sumSq[j] += v * v;
+            }
+        }
+        for (int j = 0; j < FEATURES; j++) {
+            mean[j] = sum[j] / trainRows;
+            double sd = Math.sqrt(Math.max(0, sumSq[j] / trainRows - mean[j] * mean[j]));
+            scale[j] = sd > 1e-9 ? 1 / sd : 1;
+        }
+        for (int row = 0; row < rows; row++) {
+            int offset = row * FEATURES;
+            for (int j = 0; j < FEATURES; j++) {
+                x[offset + j] = (float) ((x[offset + j] - mean[j]) * scale[j]);
+            }
+        }
+    }
+
+    /** @return w . x + bias for the row at offset */
+    private static double dot(double[] w, float[] x, int offset) {
+        double z = w[FEATURES];
+        for (int j = 0; j < FEATURES; j++) {
+            z += w[j] * x[offset + j];
+        }
+        return z;
+    }
+
+    private static double sigmoid(double z) {
+        return 1 / (1 + Math.exp(-z));
+    }
+
+    /** One worker's rows, weights and shuffle order, reused across epochs. */
+    private static final class Shard {
+        private final float[] x;
+        private final float[] y;
+        private final int[] order;
+        private final Random random;
+        private final double[] weights = new double[FEATURES + 1];
+        private final double[] gradient = new double[FEATURES + 1];
+        private double loss;
+
+        Shard(float[] x, float[] y, int from, int to, Random random) {
+            this.x = x;
+            this.y = y;
+            this.random = random;
+            this.order = new int[to - from];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = from + i;
+            }
+        }
+
+        int size() {
+            return order.length;
+        }
+
+        /** @return task running one epoch from the given weights */
+        Callable<Shard> epoch(double[] start, double rate) {
+            return () -> {
+                System.arraycopy(start, 0, weights, 0, weights.length);
+                for (int i = order.length - 1; i > 0; i--) {
+                    int k = random.nextInt(i + 1);
+                    int t = order[i];
+                    order[i] = order[k];
+                    order[k] = t;
+                }
+                loss = 0;
+                for (int b = 0; b < order.length; b += BATCH_SIZE) {
+                    int end = Math.min(order.length, b + BATCH_SIZE);
+                    Arrays.fill(gradient, 0);
+                    for (int i = b; i < end; i++) {
+                        int offset = order[i] * FEATURES;
+                        double p = sigmoid(dot(weights, x, offset));
+                        double label = y[order[i]];
+                        loss -= label == 1 ? Math.log(Math.max(p, 1e-12)) : Math.log(Math.max(1 - p, 1e-12));
+                        double err = p - label;
+                        for (int j = 0; j < FEATURES; j++) {
+                            gradient[j] += err * x[offset + j];
+                        }
+                        gradient[FEATURES] += err;
+                    }
+                    double step = rate / (end - b);
+                    for (int j = 0; j < FEATURES; j++) {
+                        weights[j] -= step * gradient[j] + rate * L2 * weights[j];
+                    }
+                    weights[FEATURES] -= step * gradient[FEATURES];
+                }
+                return this;
+            };
+        }
+    }
+
+    /** @return probability that the passenger is satisfied, from packed fields */
+    private double probability(long packed, int distance, double departureDelay, double arrivalDelay) {
+        double z = bias;
+        for (int i = 0; i < PassengerRecord.SERVICE_COUNT; i++) {
+            z += weights[i] * PassengerRecord.ratingOf(packed, i);
+        }
+        z += weights[AGE] * PassengerRecord.ageOf(packed)
+            + weights[DISTANCE] * logOrZero(distance)
+            + weights[DEPARTURE_DELAY] * logOrZero(departureDelay)
+            + weights[ARRIVAL_DELAY] * logOrZero(arrivalDelay)
+            + genderWeight[PassengerRecord.genderCodeOf(packed)]
+            + customerWeight[PassengerRecord.customerTypeCodeOf(packed)]
+            + travelWeight[PassengerRecord.travelTypeCodeOf(packed)]
+            + classWeight[PassengerRecord.travelClassCodeOf(packed)];
+        return sigmoid(z);
+    }
+
+    /** @return probability that the passenger at the cursor is satisfied */
+    public double probability(RecordCursor r) {
+        return probability(r.getPackedBits(), r.getFlightDistance(),
+            r.getDepartureDelayInMinutes(), r.getArrivalDelayInMinutes());
+    }
+
+    /** @return probability that the passenger is satisfied */
+    public double probability(PassengerRecord r) {
+        return probability(r.getPackedBits(), r.getFlightDistance(),
+            r.getDepartureDelayInMinutes(), r.getArrivalDelayInMinutes());
+    }
+
+    /** @return true if the passenger is predicted to be satisfied */
+    public boolean predict(PassengerRecord r) {
+        return probability(r) >= 0.5;
+    }
+
+    /**
+     * Scores the rows after the cursor's position into out, stopping when
+     * out is full or the rows run out. Call again with the same buffer to
+     * score the next batch.
+     * @return number of rows scored
+     */
+    public int score(RecordCursor rows, float[] out) {
+        int i = 0;
+        while (i < out.length && rows.next()) {
+            out[i++] = (float) probability(rows);
+        }
+        return i;
+    }
+
+    /**
+     * Scores every row against its label, split across threads with one
+     * cursor each.
+     * @param rows creates a cursor over the labelled records
+     * @param threads scoring threads
+     * @return accuracy, confusion counts and throughput
+     */
+    public Evaluation evaluate(Supplier<RecordCursor> rows, int threads) {
+        long start = System.nanoTime();
+        int n = rows.get().size();
+        int parts = Math.max(1, Math.min(threads, n / 4096));
+        long[] total = new long[4];
+        ExecutorService pool = pool(parts, "model-scoring");
+        try {
+            List<Future<long[]>> done = new ArrayList<>();
+            for (int p = 0; p < parts; p++) {
+                int from = (int) ((long) n * p / parts);
+                int to = (int) ((long) n * (p + 1) / parts);
+                done.add(pool.submit(() -> confusion(rows.get(), from, to)));
+            }
+            for (Future<long[]> f : done) {
+                long[] c = f.get();
+                for (int i = 0; i < total.length; i++) total[i] += c[i];
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Scoring interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Scoring failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+        return new Evaluation(total[0], total[1], total[2], total[3], System.nanoTime() - start);
+    }
+
+    private static ExecutorService pool(int threads, String name) {
+        return Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, name);
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /** @return {true positives, false positives, true negatives, false negatives} over [from, to) */
+    private long[] confusion(RecordCursor r, int from, int to) {
+        long tp = 0, fp = 0, tn = 0, fn = 0;
+        for (int row = from; row < to; row++) {
+            r.moveTo(row);
+            boolean predicted = probability(r) >= 0.5;
+            if (r.isSatisfied()) {
+                if (predicted) tp++;
+                else fn++;
+            } else if (predicted) {
+                fp++;
+            } else {
+                tn++;
+            }
+        }
+        return new long[] {tp, fp, tn, fn};
+    }
+
+    /** @return weight per feature on the standardized scale, so sizes are comparable */
+    public Map<String, Double> getCoefficients() {
+        Map<String, Double> result = new LinkedHashMap<>();
+        for (int j = 0; j < FEATURES; j++) {
+            result.put(FEATURE_NAMES[j], standardized[j]);
+        }
+        return result;
+    }
+
+    public long getTrainingRows() { return trainingRows; }
+    public long getHoldoutRows() { return holdoutRows; }
+    public int getEpochs() { return epochs; }
+    public int getThreads() { return threads; }
+    public long getTrainingNanos() { return trainingNanos; }
+
+    /** @return mean log loss over the training rows in the last epoch */
+    public double getLoss() {
+        return loss;
+    }
+
+    /** @return share of held-out rows predicted correctly (0-1) */
+    public double getHoldoutAccuracy() {
+        return holdoutRows == 0 ? 0 : (double) holdoutCorrect / holdoutRows;
+    }
+
+    /** @return training rows processed per second, over all epochs */
+    public double getTrainingRowsPerSecond() {
+        return trainingNanos > 0 ? trainingRows * (double) epochs * 1e9 / trainingNanos : 0;
+    }
+
+    /** Outcome of scoring labelled rows. */
+    public static final class Evaluation {
+        private final long truePositives;
+        private final long falsePositives;
+        private final long trueNegatives;
+        private final long falseNegatives;
+        private final long nanos;
+
+        Evaluation(long truePositives, long falsePositives, long trueNegatives, long falseNegatives, long nanos) {
+            this.truePositives = truePositives;
+            this.falsePositives = falsePositives;
+            this.trueNegatives = trueNegatives;
+            this.falseNegatives = falseNegatives;
+            this.nanos = nanos;
+        }
+
+        public long getTruePositives() { return truePositives; }
+        public long getFalsePositives() { return falsePositives; }
+        public long getTrueNegatives() { return trueNegatives; }
+        public long getFalseNegatives() { return falseNegatives; }
+        public long getNanos() { return nanos; }
+
+        /** @return number of rows scored */
+        public long getRows() {
+            return truePositives + falsePositives + trueNegatives + falseNegatives;
+        }
+
+        /** @return share of rows predicted correctly (0-1) */
+        public double getAccuracy() {
+            long rows = getRows();
+            return rows == 0 ? 0 : (double) (truePositives + trueNegatives) / rows;
+        }
+
+        /** @return share of predicted-satisfied rows that are satisfied (0-1) */
+        public double getPrecision() {
+            long predicted = truePositives + falsePositives;
+            return predicted == 0 ? 0 : (double) truePositives / predicted;
+        }
+
+        /** @return share of satisfied rows predicted as satisfied (0-1) */
+        public double getRecall() {
+            long actual = truePositives + falseNegatives;
+            return actual == 0 ? 0 : (double) truePositives / actual;
+        }
+
+        /** @return rows scored per second */
+        public double getRowsPerSecond() {
+            return nanos > 0 ? getRows() * 1e9 / nanos : 0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("accuracy %.2f%%, precision %.2f%%, recall %.2f%% over %d rows (%.0f rows/s)",
+                getAccuracy() * 100, getPrecision() * 100, getRecall() * 100, getRows(), getRowsPerSecond());
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package processor;
+
+/**
+ * How much of the dataset a filter has to read: the chunks whose zone map
+ * could not rule out a match, out of all chunks, and the rows inside them.
+ *
+ * @author IT221 Student
+ * @version 1.0
+ */
+public class ScanStats {
+
+    private final int totalChunks;
+    private final int scannedChunks;
+    private final long totalRows;
+    private final long scannedRows;
+
+    public ScanStats(int totalChunks, int scannedChunks, long totalRows, long scannedRows) {
+        this.totalChunks = totalChunks;
+        this.scannedChunks = scannedChunks;
+        this.totalRows = totalRows;
+        this.scannedRows = scannedRows;
+    }
+
+    public int getTotalChunks() { return totalChunks; }
+    public int getScannedChunks() { return scannedChunks; }
+    public long getTotalRows() { return totalRows; }
+    public long getScannedRows() { return scannedRows; }
+
+    /** @return chunks skipped without reading a row */
+    public int getSkippedChunks() {
+        return totalChunks - scannedChunks;
+    }
+
+    /** @return rows in skipped chunks */
+    public long getSkippedRows() {
+        return totalRows - scannedRows;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d of %d chunks scanned (%d of %d rows), %d skipped",
+            scannedChunks, totalChunks, scannedRows, totalRows, getSkippedChunks());
+    }
+}
@@ -0,0 +1,58 @@
+package processor;
+
+/**
+ * Top and bottom rated services for one passenger segment
+ * (travel class x travel type x customer type).
+ *
+ * @author IT221 Student
+ * @version 1.0
+ */
+public class SegmentRanking {
+
+    private final String segment;
+    private final long recordCount;
+    private final String[] topServices;
+    private final double[] topAverages;
+    private final String[] bottomServices;
+    private final double[] bottomAverages;
+
+    public SegmentRanking(String segment, long recordCount,
+                          String[] topServices, double[] topAverages,
+                          String[] bottomServices, double[] bottomAverages) {
+        this.segment = segment;
+        this.recordCount = recordCount;
+        this.topServices = topServices;
+        this.topAverages = topAverages;
+        this.bottomServices = bottomServices;
+        this.bottomAverages = bottomAverages;
+    }
+
+    public String getSegment() { return segment; }
+    public long getRecordCount() { return recordCount; }
+
+    /** @return best services, highest average first */
+    public String[] getTopServices() { return topServices.clone(); }
+    public double[] getTopAverages() { return topAverages.clone(); }
+
+    /** @return worst services, lowest average last */
+    public String[] getBottomServices() { return bottomServices.clone(); }
+    public double[] getBottomAverages() { return bottomAverages.clone(); }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(segment).append(" (").append(recordCount).append(" records)\n");
+        sb.append("Top ").append(topServices.length).append(":\n");
+        for (int i = 0; i < topServices.length; i++) {
+            sb.append("  ").append(i + 1).append(". ").append(topServices[i]);
+            sb.append(": ").append(String.format("%.2f", topAverages[i])).append("\n");
+        }
+        sb.append("Bottom ").append(bottomServices.length).append(":\n");
+        int len = bottomServices.length;
+        for (int i = 0; i < len; i++) {
+            sb.append("  ").append(len - i).append(". ").append(bottomServices[i]);
+            sb.append(": ").append(String.format("%.2f", bottomAverages[i])).append("\n");
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,293 @@
+package processor;
+
+import model.PassengerRecord;
+import util.SurveyDates;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Rolling per-class satisfaction rate, mean delays and mean rating over
+ * the last N survey days (e.g. 7 and 30), updated as records arrive.
+ *
+ * Records are added to one bucket per survey day in a ring covering the
+ * longest window, and to the running totals of every window that contains
+ * their day. When a newer day arrives the window ends move forward, and
+ * the buckets of days that fall out of a window are subtracted from its
+ * totals, so each record costs O(1) plus O(1) per day the windows advance.
+ *
+ * Windows end at the latest survey date seen. Records up to latenessDays
+ * older than that are still counted; older ones are dropped.
+ *
+ * @author IT221 Student
+ * @version 1.0
+ */
+public class SlidingWindowAggregator {
+
+    /** Class slots: travel class code (CODE_NULL, dictionary index + 1, CODE_OVERFLOW). */
+    private static final int CLASSES = PassengerRecord.CODE_OVERFLOW + 1;
+
+    private final int[] windows;
+    private final int latenessDays;
+    private final int ringDays;
+
+    // Ring of daily buckets: [slot * CLASSES + class]; slot = day mod ringDays
+    private final long[] bucketCount;
+    private final long[] bucketSatisfied;
+    private final long[] bucketRatingSum;
+    private final double[] bucketDepartureDelay;
+    private final double[] bucketArrivalDelay;
+
+    // Running totals per window: [window][class]
+    private final long[][] count;
+    private final long[][] satisfied;
+    private final long[][] ratingSum;
+    private final double[][] departureDelay;
+    private final double[][] arrivalDelay;
+
+    private int latestDay = SurveyDates.UNKNOWN;
+    private long accepted;
+    private long late;
+    private long dropped;
+    private long undated;
+
+    /**
+     * @param latenessDays how many days older than the latest survey date a
+     *                     record may be and still be counted
+     * @param windowDays window lengths in days, e.g. 7, 30
+     */
+    public SlidingWindowAggregator(int latenessDays, int... windowDays) {
+        if (latenessDays < 0) throw new IllegalArgumentException("Negative lateness: " + latenessDays);
+        if (windowDays.length == 0) throw new IllegalArgumentException("No window sizes given");
+        int longest = 0;
+        for (int w : windowDays) {
+            if (w < 1) throw new IllegalArgumentException("Window must be at least one day: " + w);
+            longest = Math.max(longest, w);
+        }
+        this.windows = windowDays.clone();
+        this.latenessDays = latenessDays;
+        this.ringDays = longest;
+        int slots = ringDays * CLASSES;
+        bucketCount = new long[slots];
+        bucketSatisfied = new long[slots];
+        bucketRatingSum = new long[slots];
+        bucketDepartureDelay = new double[slots];
+        bucketArrivalDelay = new double[slots];
+        count = new long[windows.length][CLASSES];
+        satisfied = new long[windows.length][CLASSES];
+        ratingSum = new long[windows.length][CLASSES];
+        departureDelay = new double[windows.length][CLASSES];
+        arrivalDelay = new double[windows.length][CLASSES];
+    }
+
+    /**
+     * Adds one survey.
+     * @return false if the record was dropped (no valid date, or later than the lateness bound)
+     */
+    public synchronized boolean add(PassengerRecord r) {
+        int day = SurveyDates.toEpochDay(r.getDate());
+        if (day == SurveyDates.UNKNOWN) {
+            undated++;
+            return false;
+        }
+        if (latestDay == SurveyDates.UNKNOWN) {
+            latestDay = day;
+            for (int d = day - ringDays + 1; d <= day; d++) {
+                clear(d);
+            }
+        } else if (day > latestDay) {
+            advance(day);
+        } else if (day < latestDay - latenessDays) {
+            dropped++;
+            return false;
+        }
+        accepted++;
+        if (day < latestDay) late++;
+        // Older than every window: counted as accepted but affects no totals
+        if (day <= latestDay - ringDays) return true;
+
+        long bits = r.getPackedBits();
+        int cls = PassengerRecord.travelClassCodeOf(bits);
+        int sat = r.isSatisfied() ? 1 : 0;
+        int ratings = PassengerRecord.ratingSumOf(bits);
+        double departure = r.getDepartureDelayInMinutes();
+        double arrival = r.getArrivalDelayInMinutes();
+
+        int slot = Math.floorMod(day, ringDays) * CLASSES + cls;
+        bucketCount[slot]++;
+        bucketSatisfied[slot] += sat;
+        bucketRatingSum[slot] += ratings;
+        bucketDepartureDelay[slot] += departure;
+        bucketArrivalDelay[slot] += arrival;
+        for (int w = 0; w < windows.length; w++) {
+            if (day > latestDay - windows[w]) {
+                count[w][cls]++;
+                satisfied[w][cls] += sat;
+                ratingSum[w][cls] += ratings;
+                departureDelay[w][cls] += departure;
+                arrivalDelay[w][cls] += arrival;
+            }
+        }
+        return true;
+    }
+
+    /** Adds a batch; usable as a BackgroundLoader.onBatch listener. */
+    public void addAll(List<PassengerRecord> batch) {
+        for (PassengerRecord r : batch) {
+            add(r);
+        }
+    }
+
+    /**
+     * Moves the window ends to a later day: subtracts the days that leave
+     * each window, then recycles their ring slots for the new days.
+     */
+    private void advance(int day) {
+        for (int w = 0; w < windows.length; w++) {
+            int size = windows[w];
+            if (day - latestDay >= size) {
+                Arrays.fill(count[w], 0);
+                Arrays.fill(satisfied[w], 0);
+                Arrays.fill(ratingSum[w], 0);
+                Arrays.fill(departureDelay[w], 0);
+                Arrays.fill(arrivalDelay[w], 0);
+                continue;
+            }
+            for (int d = latestDay - size + 1; d <= day - size; d++) {
+                int base = Math.floorMod(d, ringDays) * CLASSES;
+                for (int c = 0; c < CLASSES; c++) {
+                    count[w][c] -= bucketCount[base + c];
+                    satisfied[w][c] -= bucketSatisfied[base + c];
+                    ratingSum[w][c] -= bucketRatingSum[base + c];
+                    departureDelay[w][c] -= bucketDepartureDelay[base + c];
+                    arrivalDelay[w][c] -= bucketArrivalDelay[base + c];
+                }
+            }
+        }
+        for (int d = Math.max(latestDay + 1, day - ringDays + 1); d <= day; d++) {
+            clear(d);
+        }
+        latestDay = day;
+    }
+
+    /** Empties the ring slot of a day that has just entered the longest window. */
+    private void clear(int day) {
+        int slot = Math.floorMod(day, ringDays);
+        int base = slot * CLASSES;
+        Arrays.fill(bucketCount, base, base + CLASSES, 0);
+        Arrays.fill(bucketSatisfied, base, base + CLASSES, 0);
+        Arrays.fill(bucketRatingSum, base, base + CLASSES, 0);
+        Arrays.fill(bucketDepartureDelay, base, base + CLASSES, 0);
+        Arrays.fill(bucketArrivalDelay, base, base + CLASSES, 0);
+    }
+
+    /**
+     * @param windowDays one of the window lengths given to the constructor
+     * @return totals per travel class over the window, in dictionary order;
+     *         "Unknown" holds records without a class and "Other" values
+     *         outside the dictionary
+     */
+    public synchronized Map<String, WindowStats> getByClass(int windowDays) {
+        int w = windowIndex(windowDays);
+        Map<String, WindowStats> result = new LinkedHashMap<>();
+        for (int c = 0; c < CLASSES; c++) {
+            if (count[w][c] == 0) continue;
+            String name = c == PassengerRecord.CODE_NULL ? "Unknown"
+                : c == PassengerRecord.CODE_OVERFLOW ? "Other" : PassengerRecord.TRAVEL_CLASSES[c - 1];
+            result.put(name, new WindowStats(count[w][c], satisfied[w][c], ratingSum[w][c],
+                departureDelay[w][c], arrivalDelay[w][c]));
+        }
+        return result;
+    }
+
+    /** @return totals over all classes in the window */
+    public synchronized WindowStats getOverall(int windowDays) {
+        int w = windowIndex(windowDays);
+        long n = 0, sat = 0, ratings = 0;
+        double departure = 0, arrival = 0;
+        for (int c = 0; c < CLASSES; c++) {
+            n += count[w][c];
+            sat += satisfied[w][c];
+            ratings += ratingSum[w][c];
+            departure += departureDelay[w][c];
+            arrival += arrivalDelay[w][c];
+        }
+        return new WindowStats(n, sat, ratings, departure, arrival);
+    }
+
+    private int windowIndex(int windowDays) {
+        for (int w = 0; w < windows.length; w++) {
+            if (windows[w] == windowDays) return w;
+        }
+        throw new IllegalArgumentException("No " + windowDays + "-day window; have " + Arrays.toString(windows));
+    }
+
+    /** @return latest survey date seen (M/D/YYYY), or null before the first record */
+    public synchronized String getLatestDate() {
+        return SurveyDates.format(latestDay);
+    }
+
+    /** @return window lengths in days */
+    public int[] getWindows() {
+        return windows.clone();
+    }
+
+    /** @return lateness bound in days */
+    public int getLatenessDays() {
+        return latenessDays;
+    }
+
+    /** @return records counted, including late ones */
+    public synchronized long getAcceptedCount() { return accepted; }
+
+    /** @return records older than the latest date but within the lateness bound */
+    public synchronized long getLateCount() { return late; }
+
+    /** @return records dropped for arriving after the lateness bound */
+    public synchronized long getDroppedCount() { return dropped; }
+
+    /** @return records without a valid survey date */
+    public synchronized long getUndatedCount() { return undated; }
+
+    /** Totals of one window (and class). */
+    public static final class WindowStats {
+        private final long count;
+        private final long satisfied;
+        private final long ratingSum;
+        private final double departureDelaySum;
+        private final double arrivalDelaySum;
+
+        WindowStats(long count, long satisfied, long ratingSum, double departureDelaySum, double arrivalDelaySum) {
+            this.count = count;
+            this.satisfied = satisfied;
+            this.ratingSum = ratingSum;
+            this.departureDelaySum = departureDelaySum;
+            this.arrivalDelaySum = arrivalDelaySum;
+        }
+
+        /** @return number of surveys */
+        public long getCount() { return count; }
+
+        /** @return satisfaction rate (0-100) */
+        public double getSatisfactionRate() { return count == 0 ? 0 : satisfied * 100.0 / count; }
+
+        /** @return average departure delay in minutes */
+        public double getAverageDepartureDelay() { return count == 0 ? 0 : departureDelaySum / count; }
+
+        /** @return average arrival delay in minutes */
+        public double getAverageArrivalDelay() { return count == 0 ? 0 : arrivalDelaySum / count; }
+
+        /** @return average of all 14 service ratings */
+        public double getAverageServiceRating() {
+            return count == 0 ? 0 : (double) ratingSum / (count * PassengerRecord.SERVICE_COUNT);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d surveys, %.1f%% satisfied, delay %.1f/%.1f min, rating %.2f",
+                count, getSatisfactionRate(), getAverageDepartureDelay(), getAverageArrivalDelay(),
+                getAverageServiceRating());
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package processor;
+
+import model.PassengerRecord;
+import util.CSVReader;
+import util.LongIntHashMap;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Records keyed by passenger ID, for feeds that re-send corrected surveys.
+ * A record whose ID was already seen replaces the stored one (LAST_WRITER_WINS)
+ * or is dropped (FIRST_WINS); either way it is counted as a duplicate.
+ * The replacement keeps the original row's position, and RunningAggregates
+ * is updated by subtracting the old row and adding the new one.
+ *
+ * IDs of the form PAX&lt;digits&gt; (any letter case) are indexed in a
+ * primitive LongIntHashMap on their numeric part; anything else falls back
+ * to a HashMap on the upper-cased ID. Records without an ID are kept as-is.
+ *
+ * Upserts and snapshot() are synchronized, so one thread can load while
+ * others take snapshots; read getRecords() once loading has finished.
+ *
+ * @author IT221 Student
+ * @version 1.0
+ */
+public class UpsertDataset {
+
+    /** What happens when an ID is seen again. */
+    public enum Mode {
+        /** Keep the first record for each ID. */
+        FIRST_WINS,
+        /** Replace the stored record with the newer one. */
+        LAST_WRITER_WINS
+    }
+
+    private static final String ID_PREFIX = "PAX";
+    // Longest digit run whose value and length fit in one positive long key
+    private static final int MAX_ID_DIGITS = 17;
+
+    private final Mode mode;
+    private final List<PassengerRecord> records = new ArrayList<>();
+    private final LongIntHashMap index = new LongIntHashMap(1 << 16);
+    private final Map<String, Integer> otherIds = new HashMap<>();
+    private final RunningAggregates aggregates = new RunningAggregates();
+    private int[] occurrences = new int[1 << 16];
+    private long duplicates;
+    private long duplicatedIds;
+
+    /** @param mode duplicate handling */
+    public UpsertDataset(Mode mode) {
+        this.mode = mode;
+    }
+
+    /**
+     * Loads a CSV file, resolving duplicate IDs as it goes.
+     * @param reader CSV source
+     * @param mode duplicate handling
+     * @return loaded dataset
+     * @throws IOException if file cannot be read
+     */
+    public static UpsertDataset load(CSVReader reader, Mode mode) throws IOException {
+        UpsertDataset data = new UpsertDataset(mode);
+        reader.forEachBatch(data::upsertAll);
+        return data;
+    }
+
+    /**
+     * Inserts a record or resolves it against the stored one with the same ID.
+     * @return true if the record was stored (new ID, or replacement)
+     */
+    public synchronized boolean upsert(PassengerRecord r) {
+        long key = numericKey(r.getId());
+        int slot;
+        if (key != 0) {
+            slot = index.get(key);
+        } else if (r.getId() != null && !r.getId().isEmpty()) {
+            slot = otherIds.getOrDefault(r.getId().toUpperCase(Locale.ROOT), LongIntHashMap.MISSING);
+        } else {
+            append(r);
+            return true;
+        }
+
+        if (slot == LongIntHashMap.MISSING) {
+            slot = append(r);
+            if (key != 0) index.put(key, slot);
+            else otherIds.put(r.getId().toUpperCase(Locale.ROOT), slot);
+            return true;
+        }
+
+        duplicates++;
+        if (++occurrences[slot] == 2) duplicatedIds++;
+        if (mode == Mode.FIRST_WINS) return false;
+        aggregates.replace(records.get(slot), r);
+        records.set(slot, r);
+        return true;
+    }
+
+    /** Upserts a batch; usable as a CSVReader.forEachBatch sink. */
+    public synchronized void upsertAll(List<PassengerRecord> batch) {
+        for (PassengerRecord r : batch) {
+            upsert(r);
+        }
+    }
+
+    private int append(PassengerRecord r) {
+        int slot = records.size();
+        records.add(r);
+        aggregates.add(r);
+        if (slot == occurrences.length) {
+            int[] grown = new int[slot * 2];
+            System.arraycopy(occurrences, 0, grown, 0, slot);
+            occurrences = grown;
+        }
+        occurrences[slot] = 1;
+        return slot;
+    }
+
+    /**
+     * Packs PAX&lt;digits&gt; into a positive long: the digit count in the
+     * top bits keeps PAX01 and PAX1 distinct.
+     * @return key, or 0 if the ID has another form
+     */
+    static long numericKey(String id) {
+        if (id == null || !id.regionMatches(true, 0, ID_PREFIX, 0, ID_PREFIX.length())) return 0;
+        int digits = id.length() - ID_PREFIX.length();
+        if (digits < 1 || digits > MAX_ID_DIGITS) return 0;
+        long value = 0;
+        for (int i = ID_PREFIX.length(); i < id.length(); i++) {
+            char c = id.charAt(i);
+            if (c < '0' || c > '9') return 0;
+            value = value * 10 + (c - '0');
+        }
+        return (long) digits << 57 | value;
+    }
+
+    /** @return stored records, one per ID, in first-seen order */
+    public List<PassengerRecord> getRecords() {
+        return Collections.unmodifiableList(records);
+    }
+
+    /** @return copy of the records stored so far, one per ID, in first-seen order */
+    public synchronized List<PassengerRecord> snapshot() {
+        return Collections.unmodifiableList(new ArrayList<>(records));
+    }
+
+    /** @return stored record for an ID (case-insensitive), or null */
+    public PassengerRecord get(String id) {
+        long key = numericKey(id);
+        int slot = key != 0 ? index.get(key)
+            : id == null ? LongIntHashMap.MISSING
+            : otherIds.getOrDefault(id.toUpperCase(Locale.ROOT), LongIntHashMap.MISSING);
+        return slot == LongIntHashMap.MISSING ? null : records.get(slot);
+    }
+
+    /** @return number of stored records */
+    public synchronized int size() {
+        return records.size();
+    }
+
+    /** @return duplicate handling mode */
+    public Mode getMode() {
+        return mode;
+    }
+
+    /** @return rows whose ID had already been seen */
+    public synchronized long getDuplicateCount() {
+        return duplicates;
+    }
+
+    /** @return number of IDs seen more than once */
+    public synchronized long getDuplicatedIdCount() {
+        return duplicatedIds;
+    }
+
+    /** @return totals over the stored records, maintained incrementally */
+    public RunningAggregates getAggregates() {
+        return aggregates;
+    }
+}
@@ -0,0 +1,97 @@
+package processor;
+
+import model.PassengerRecord;
+import model.RecordCursor;
+import util.SurveyDates;
+
+/**
+ * Synopsis of one chunk of records: the min/max of the range-filtered
+ * fields and, for each categorical field, a bitmask of the codes present
+ * (bit c set if some record has code c, see PassengerRecord.CODE_NULL and
+ * CODE_OVERFLOW). A filter whose range or codes miss the synopsis cannot
+ * match any record in the chunk, so the chunk is skipped.
+ *
+ * @author IT221 Student
+ * @version 1.0
+ */
+final class ZoneMap {
+
+    final int start;
+    final int end;
+    int minAge = Integer.MAX_VALUE, maxAge = Integer.MIN_VALUE;
+    int minDistance = Integer.MAX_VALUE, maxDistance = Integer.MIN_VALUE;
+    double minDepartureDelay = Double.POSITIVE_INFINITY, maxDepartureDelay = Double.NEGATIVE_INFINITY;
+    double minArrivalDelay = Double.POSITIVE_INFINITY, maxArrivalDelay = Double.NEGATIVE_INFINITY;
+    // Over rows with a valid date; empty (min > max) if there are none
+    int minDate = Integer.MAX_VALUE, maxDate = Integer.MIN_VALUE;
+    int genders, customerTypes, travelTypes, travelClasses, satisfactions;
+
+    private ZoneMap(int start, int end) {
+        this.start = start;
+        this.end = end;
+    }
+
+    /**
+     * Scans the records once and summarizes each run of chunkRows rows.
+     * @param r cursor before the first record
+     * @return one zone map per chunk, in record order
+     */
+    static ZoneMap[] build(RecordCursor r, int chunkRows) {
+        int n = r.size();
+        ZoneMap[] zones = new ZoneMap[(int) (((long) n + chunkRows - 1) / chunkRows)];
+        ZoneMap z = null;
+        while (r.next()) {
+            int row = r.getPosition();
+            if (row % chunkRows == 0) {
+                z = new ZoneMap(row, (int) Math.min(n, (long) row + chunkRows));
+                zones[row / chunkRows] = z;
+            }
+            z.add(r);
+        }
+        return zones;
+    }
+
+    private void add(RecordCursor r) {
+        minAge = Math.min(minAge, r.getAge());
+        maxAge = Math.max(maxAge, r.getAge());
+        minDistance = Math.min(minDistance, r.getFlightDistance());
+        maxDistance = Math.max(maxDistance, r.getFlightDistance());
+        // NaN never satisfies a range, so it is left out of the bounds
+        double departure = r.getDepartureDelayInMinutes();
+        if (departure < minDepartureDelay) minDepartureDelay = departure;
+        if (departure > maxDepartureDelay) maxDepartureDelay = departure;
+        double arrival = r.getArrivalDelayInMinutes();
+        if (arrival < minArrivalDelay) minArrivalDelay = arrival;
+        if (arrival > maxArrivalDelay) maxArrivalDelay = arrival;
+        int date = SurveyDates.toEpochDay(r.getDateChars());
+        if (date != SurveyDates.UNKNOWN) {
+            minDate = Math.min(minDate, date);
+            maxDate = Math.max(maxDate, date);
+        }
+        long packed = r.getPackedBits();
+        genders |= 1 << PassengerRecord.genderCodeOf(packed);
+        customerTypes |= 1 << PassengerRecord.customerTypeCodeOf(packed);
+        travelTypes |= 1 << PassengerRecord.travelTypeCodeOf(packed);
+        travelClasses |= 1 << PassengerRecord.travelClassCodeOf(packed);
+        satisfactions |= 1 << PassengerRecord.satisfactionCodeOf(packed);
+    }
+
+    /** @return number of records in the chunk */
+    int size() {
+        return end - start;
+    }
+
+    /**
+     * Codes a case-insensitive equality filter can match: the dictionary
+     * entries equal to the value, plus CODE_OVERFLOW because values outside
+     * the dictionary (including other letter cases) are stored there.
+     * @return bitmask of codes to look for in a synopsis
+     */
+    static int codesMatching(String[] dictionary, String value) {
+        int mask = 1 << PassengerRecord.CODE_OVERFLOW;
+        for (int i = 0; i < dictionary.length; i++) {
+            if (dictionary[i].equalsIgnoreCase(value)) mask |= 1 << (i + 1);
+        }
+        return mask;
+    }
+}
@@ -0,0 +1,212 @@
+package util;
+
+import model.PassengerRecord;
+import java.io.File;
+import java.io.IOException;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Runs the ingest pipeline on a background thread so callers can work
+ * with the rows loaded so far. Parsed batches are published as they
+ * arrive; snapshot() returns a fixed view over the batches published at
+ * that moment, which later batches never change.
+ *
+ * @author IT221 Student
+ * @version 1.0
+ */
+public class BackgroundLoader {
+
+    private final CSVReader reader;
+    private final IngestPipeline pipeline;
+    private final long fileSize;
+    private final boolean compressed;
+    private final List<List<PassengerRecord>> batches = new CopyOnWriteArrayList<>();
+    private final CountDownLatch finished = new CountDownLatch(1);
+    private volatile long loadedRows;
+    private volatile IOException failure;
+    private volatile IngestStats stats;
+    private Consumer<List<PassengerRecord>> listener;
+    private Thread thread;
+
+    /** @param reader CSV source to load */
+    public BackgroundLoader(CSVReader reader) {
+        this.reader = reader;
+        this.pipeline = new IngestPipeline(reader, IngestPipeline.defaultWorkers());
+        this.fileSize = new File(reader.getFilePath()).length();
+        String lower = reader.getFilePath().toLowerCase(Locale.ROOT);
+        this.compressed = lower.endsWith(".gz") || lower.endsWith(".gzip") || lower.endsWith(".zip");
+    }
+
+    /**
+     * Registers a callback that sees every batch on the loader thread
+     * before it is published, e.g. to build samples or indexes during ingest.
+     * @return this loader
+     * @throws IllegalStateException if already started
+     */
+    public synchronized BackgroundLoader onBatch(Consumer<List<PassengerRecord>> listener) {
+        if (thread != null) {
+            throw new IllegalStateException("Loader already started");
+        }
+        this.listener = this.listener == null ? listener : this.listener.andThen(listener);
+        return this;
+    }
+
+    /**
+     * Starts loading; returns immediately.
+     * @return this loader
+     * @throws IllegalStateException if already started
+     */
+    public synchronized BackgroundLoader start() {
+        if (thread != null) {
+            throw new IllegalStateException("Loader already started");
+        }
+        Consumer<List<PassengerRecord>> callback = listener;
+        thread = new Thread(() -> {
+            try {
+                stats = pipeline.run(batch -> {
+                    if (callback != null) callback.accept(batch);
+                    batches.add(batch);
+                    loadedRows += batch.size();
+                });
+            } catch (IOException e) {
+                failure = e;
+            } catch (RuntimeException e) {
+                failure = new IOException("Ingest failed", e);
+            } finally {
+                finished.countDown();
+            }
+        }, "background-loader");
+        thread.setDaemon(true);
+        thread.start();
+        return this;
+    }
+
+    /** @return true once loading has finished, successfully or not */
+    public boolean isDone() {
+        return finished.getCount() == 0;
+    }
+
+    /** @return error that stopped loading, or null */
+    public IOException getFailure() {
+        return failure;
+    }
+
+    /** @return ingest timings once loading has finished successfully, else null */
+    public IngestStats getStats() {
+        return stats;
+    }
+
+    /** @return number of rows published so far */
+    public long getLoadedRows() {
+        return loadedRows;
+    }
+
+    /** @return source file path */
+    public String getFilePath() {
+        return reader.getFilePath();
+    }
+
+    /**
+     * Fraction of the input consumed so far.
+     * @return value from 0 to 1, or -1 for compressed input where the
+     *         uncompressed size is not known up front
+     */
+    public double getProgress() {
+        if (isDone()) return 1.0;
+        if (compressed || fileSize <= 0) return -1;
+        return Math.min(1.0, (double) pipeline.getBytesRead() / fileSize);
+    }
+
+    /**
+     * Waits until loading has finished.
+     * @return all loaded rows
+     * @throws IOException if loading failed
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public List<PassengerRecord> await() throws IOException, InterruptedException {
+        finished.await();
+        if (failure != null) throw failure;
+        return snapshot();
+    }
+
+    /**
+     * Waits up to the given time for loading to finish.
+     * @return true if loading has finished
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public boolean await(long timeout, TimeUnit unit) throws InterruptedException {
+        return finished.await(timeout, unit);
+    }
+
+    /** @return read-only view of the rows published so far */
+    public List<PassengerRecord> snapshot() {
+        return new Snapshot(new ArrayList<>(batches));
+    }
+
+    /** Fixed list over published batches; get() binary-searches batch offsets. */
+    private static class Snapshot extends AbstractList<PassengerRecord> implements RandomAccess {
+        private final List<List<PassengerRecord>> parts;
+        private final int[] offsets;
+
+        Snapshot(List<List<PassengerRecord>> parts) {
+            this.parts = parts;
+            this.offsets = new int[parts.size() + 1];
+            for (int i = 0; i < parts.size(); i++) {
+                offsets[i + 1] = offsets[i] + parts.get(i).size();
+            }
+        }
+
+        @Override
+        public PassengerRecord get(int index) {
+            if (index < 0 || index >= size()) {
+                throw new IndexOutOfBoundsException("Row " + index + " of " + size());
+            }
+            int lo = 0;
+            int hi = parts.size() - 1;
+            while (lo < hi) {
+                int mid = (lo + hi + 1) >>> 1;
+                if (offsets[mid] <= index) lo = mid;
+                else hi = mid - 1;
+            }
+            return parts.get(lo).get(index - offsets[lo]);
+        }
+
+        @Override
+        public int size() {
+            return offsets[parts.size()];
+        }
+
+        @Override
+        public Iterator<PassengerRecord> iterator() {
+            return new Iterator<PassengerRecord>() {
+                private int part;
+                private int pos;
+
+                @Override
+                public boolean hasNext() {
+                    while (part < parts.size() && pos >= parts.get(part).size()) {
+                        part++;
+                        pos = 0;
+                    }
+                    return part < parts.size();
+                }
+
+                @Override
+                public PassengerRecord next() {
+                    if (!hasNext()) throw new NoSuchElementException();
+                    return parts.get(part).get(pos++);
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package util;
+
+import model.PassengerRecord;
+import model.RowLayout;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+
+/**
+ * Compact binary record file: a 16-byte header (magic "PAXR", format
+ * version, row size, reserved) followed by fixed-width RowLayout rows in
+ * little-endian byte order.
+ *
+ * @author IT221 Student
+ * @version 1.0
+ */
+public final class BinaryRecordFile {
+
+    public static final int MAGIC = 0x52584150; // "PAXR" read little-endian
+    public static final int VERSION = 1;
+    public static final int HEADER_SIZE = 16;
+    public static final ByteOrder ORDER = ByteOrder.LITTLE_ENDIAN;
+
+    private BinaryRecordFile() {}
+
+    /** Writes the file header at the buffer position. */
+    public static void putHeader(ByteBuffer buf) {
+        buf.putInt(MAGIC).putInt(VERSION).putInt(RowLayout.ROW_SIZE).putInt(0);
+    }
+
+    /**
+     * Reads and checks the file header at the buffer position.
+     * @param buf buffer in ORDER holding at least the header bytes read from the file
+     * @param path file the header came from, for error messages
+     * @throws IOException if it is not a record file of this version
+     */
+    public static void checkHeader(ByteBuffer buf, Path path) throws IOException {
+        if (buf.remaining() < HEADER_SIZE || buf.getInt() != MAGIC) {
+            throw new IOException("Not a binary record file: " + path);
+        }
+        int version = buf.getInt();
+        int rowSize = buf.getInt();
+        buf.getInt();
+        if (version != VERSION || rowSize != RowLayout.ROW_SIZE) {
+            throw new IOException("Unsupported record file version " + version + "/" + rowSize);
+        }
+    }
+
+    /**
+     * Streams every record of a binary record file.
+     * @param path file written by RecordExporter in BINARY format
+     * @param action called for each record, in file order
+     * @return number of records read
+     * @throws IOException if the file cannot be read or is not a record file
+     */
+    public static long forEach(Path path, Consumer<PassengerRecord> action) throws IOException {
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer buf = ByteBuffer.allocateDirect(RowLayout.ROW_SIZE * 4096).order(ORDER);
+            buf.limit(HEADER_SIZE);
+            readFully(ch, buf);
+            buf.flip();
+            checkHeader(buf, path);
+            long count = 0;
+            buf.clear();
+            boolean eof = false;
+            while (!eof) {
+                eof = ch.read(buf) < 0;
+                buf.flip();
+                while (buf.remaining() >= RowLayout.ROW_SIZE) {
+                    action.accept(RowLayout.read(buf, buf.position()));
+                    buf.position(buf.position() + RowLayout.ROW_SIZE);
+                    count++;
+                }
+                buf.compact();
+            }
+            if (buf.position() > 0) {
+                throw new IOException("Truncated record at end of " + path);
+            }
+            return count;
+        }
+    }
+
+    private static void readFully(FileChannel ch, ByteBuffer buf) throws IOException {
+        while (buf.hasRemaining() && ch.read(buf) >= 0) { }
+    }
+}
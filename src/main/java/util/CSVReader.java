@@ -1,14 +1,21 @@
 package util;
 
 import model.PassengerRecord;
-import java.io.BufferedReader;
-import java.io.FileReader;
+import model.RecordField;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
 
 /**
  * Reads and parses CSV files into PassengerRecord objects.
+ * Plain, .gz and .zip files are accepted (see CompressedInput).
+ * Columns are matched by header name; project() limits parsing to the
+ * fields a job needs and where() skips unwanted rows before parsing.
  * 
  * @author IT221 Student
  * @version 1.0
@@ -17,12 +24,49 @@ public class CSVReader {
     
     private String filePath;
     private String[] headers;
+    private Set<RecordField> projection = EnumSet.allOf(RecordField.class);
+    private RowFilter filter = RowFilter.all();
+    private RowParser parser;
+    private IngestStats lastIngestStats;
     
     /** @param filePath path to CSV file */
     public CSVReader(String filePath) {
         this.filePath = filePath;
     }
     
+    /**
+     * Restricts parsing to the given fields; the other columns are skipped
+     * without being decoded and stay unset (null, 0 or 0.0) in the records.
+     * @param fields fields the caller needs
+     * @return this reader
+     */
+    public CSVReader project(RecordField... fields) {
+        projection = fields.length == 0 ? EnumSet.noneOf(RecordField.class) : EnumSet.copyOf(Arrays.asList(fields));
+        return this;
+    }
+    
+    /** @return fields parsed from each row (all fields unless project() was called) */
+    public Set<RecordField> getProjection() {
+        return Collections.unmodifiableSet(projection);
+    }
+    
+    /**
+     * Keeps only rows accepted by the filter. The test runs on the raw
+     * bytes of the filtered columns before the row is parsed, so rejected
+     * rows cost a partial scan and no allocation.
+     * @param filter rows to keep
+     * @return this reader
+     */
+    public CSVReader where(RowFilter filter) {
+        this.filter = filter;
+        return this;
+    }
+    
+    /** @return row filter (RowFilter.all() unless where() was called) */
+    public RowFilter getFilter() {
+        return filter;
+    }
+    
     /**
      * Reads all records from the CSV file.
      * @return list of PassengerRecord objects
@@ -30,103 +74,45 @@ public class CSVReader {
      */
     public List<PassengerRecord> readAllRecords() throws IOException {
         List<PassengerRecord> records = new ArrayList<>();
-        BufferedReader reader = new BufferedReader(new FileReader(filePath));
-        
-        try {
-            String headerLine = reader.readLine();
-            if (headerLine != null) {
-                headers = headerLine.split(",");
-            }
-            
-            String line;
-            int lineNumber = 0;
-            
-            while ((line = reader.readLine()) != null) {
-                lineNumber++;
-                try {
-                    PassengerRecord record = parseLine(line, lineNumber);
-                    if (record != null) {
-                        records.add(record);
-                    }
-                } catch (Exception e) {
-                    System.out.println("Skipping line " + lineNumber + ": " + e.getMessage());
-                }
-            }
-        } finally {
-            reader.close();
-        }
-        
+        forEachBatch(records::addAll);
         return records;
     }
     
-    /** Parses a CSV line into a PassengerRecord. */
-    private PassengerRecord parseLine(String line, int lineNumber) {
-        String[] values = line.split(",");
-        
-        if (values.length < 25) {
-            return null;
-        }
-        
-        PassengerRecord record = new PassengerRecord();
-        
-        try {
-            // Column 0: ID (String with PAX prefix, e.g., PAX0000001)
-            record.setId(values[0].trim());
-            record.setGender(values[1].trim());
-            record.setCustomerType(values[2].trim());
-            record.setAge(parseInteger(values[3], 0));
-            record.setTypeOfTravel(values[4].trim());
-            record.setTravelClass(values[5].trim());
-            record.setFlightDistance(parseInteger(values[6], 0));
-            record.setInflightWifiService(parseInteger(values[7], 0));
-            record.setDepartureArrivalTimeConvenient(parseInteger(values[8], 0));
-            record.setEaseOfOnlineBooking(parseInteger(values[9], 0));
-            record.setGateLocation(parseInteger(values[10], 0));
-            record.setFoodAndDrink(parseInteger(values[11], 0));
-            record.setOnlineBoarding(parseInteger(values[12], 0));
-            record.setSeatComfort(parseInteger(values[13], 0));
-            record.setInflightEntertainment(parseInteger(values[14], 0));
-            record.setOnBoardService(parseInteger(values[15], 0));
-            record.setLegRoomService(parseInteger(values[16], 0));
-            record.setBaggageHandling(parseInteger(values[17], 0));
-            record.setCheckinService(parseInteger(values[18], 0));
-            record.setInflightService(parseInteger(values[19], 0));
-            record.setCleanliness(parseInteger(values[20], 0));
-            record.setDepartureDelayInMinutes(parseDouble(values[21], 0.0));
-            record.setArrivalDelayInMinutes(parseDouble(values[22], 0.0));
-            record.setSatisfaction(values[23].trim());
-            record.setDate(values[24].trim());
-            
-            return record;
-        } catch (Exception e) {
-            throw new RuntimeException("Parse error at line " + lineNumber);
-        }
+    /**
+     * Streams records from the CSV file without collecting them,
+     * for loaders that store records elsewhere.
+     * @param action called for each parsed record, in file order
+     * @throws IOException if file cannot be read
+     */
+    public void forEachRecord(Consumer<PassengerRecord> action) throws IOException {
+        forEachBatch(batch -> batch.forEach(action));
     }
     
-    /** Safely parses integer, returns default if invalid. */
-    private int parseInteger(String value, int defaultValue) {
-        if (value == null || value.trim().isEmpty()) {
-            return defaultValue;
-        }
-        try {
-            return Integer.parseInt(value.trim());
-        } catch (NumberFormatException e) {
-            return defaultValue;
-        }
+    /**
+     * Streams record batches through the staged ingest pipeline: reading,
+     * parsing and the caller's work on each batch run concurrently.
+     * @param action called for each batch of parsed records, in file order
+     * @throws IOException if file cannot be read
+     */
+    public void forEachBatch(Consumer<List<PassengerRecord>> action) throws IOException {
+        lastIngestStats = new IngestPipeline(this, IngestPipeline.defaultWorkers()).run(action);
     }
     
-    /** Safely parses double, returns default if invalid. */
-    private double parseDouble(String value, double defaultValue) {
-        if (value == null || value.trim().isEmpty()) {
-            return defaultValue;
-        }
-        try {
-            return Double.parseDouble(value.trim());
-        } catch (NumberFormatException e) {
-            return defaultValue;
-        }
+    /**
+     * Resolves the header row and prepares the row parser.
+     * @throws IOException if a projected field has no column
+     */
+    void setHeaders(String[] headers) throws IOException {
+        this.parser = RowParser.forHeader(headers, projection, filter);
+        this.headers = headers;
     }
     
+    /** @return parser for the current file's header, set once the header is read */
+    RowParser getParser() { return parser; }
+    
     public String[] getHeaders() { return headers; }
+    
+    /** @return stage timings of the last read, or null before the first */
+    public IngestStats getLastIngestStats() { return lastIngestStats; }
     public String getFilePath() { return filePath; }
 }
@@ -0,0 +1,353 @@
+package util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Opens plain, gzip (.gz) or zip (.zip, first entry) input files.
+ * Compressed input is decompressed on a background thread that runs ahead
+ * of the caller and hands over chunks through a bounded queue. Gzip files
+ * made of several members (e.g. concatenated or block-compressed exports)
+ * have their members inflated in parallel and delivered in order; member
+ * boundaries are found just ahead of the workers, and the inflated bytes
+ * held at once are bounded.
+ *
+ * @author IT221 Student
+ * @version 1.0
+ */
+public final class CompressedInput {
+
+    private static final int CHUNK_SIZE = 1 << 16;
+    private static final int QUEUE_CHUNKS = 32;
+    // Members larger than this are streamed sequentially to bound memory
+    private static final long MAX_PARALLEL_MEMBER = 16L << 20;
+    // Inflated bytes (by the members' ISIZE trailers) allowed in flight
+    private static final long MAX_BUFFERED_BYTES = 64L << 20;
+    // Gzip header (10 bytes), empty deflate block and trailer (8 bytes)
+    private static final int MIN_MEMBER = 20;
+
+    private CompressedInput() {}
+
+    /**
+     * @param path file to open; compression is chosen by extension
+     * @return stream of uncompressed bytes
+     * @throws IOException if the file cannot be opened
+     */
+    public static InputStream open(String path) throws IOException {
+        String lower = path.toLowerCase(Locale.ROOT);
+        if (lower.endsWith(".gz") || lower.endsWith(".gzip")) {
+            return new PipedChunks("gunzip", out -> inflateGzip(path, out));
+        }
+        if (lower.endsWith(".zip")) {
+            return new PipedChunks("unzip", out -> {
+                ZipInputStream zip = new ZipInputStream(new FileInputStream(path));
+                ZipEntry entry = zip.getNextEntry();
+                while (entry != null && entry.isDirectory()) {
+                    entry = zip.getNextEntry();
+                }
+                if (entry == null) {
+                    zip.close();
+                    throw new IOException("No file entry in " + path);
+                }
+                pump(zip, out);
+            });
+        }
+        return new FileInputStream(path);
+    }
+
+    /** Copies a stream into the pipe and closes it. */
+    private static void pump(InputStream in, ChunkSink out) throws IOException, InterruptedException {
+        try {
+            byte[] buf = new byte[CHUNK_SIZE];
+            int n;
+            while ((n = in.read(buf)) > 0) {
+                out.put(Arrays.copyOf(buf, n));
+            }
+        } finally {
+            in.close();
+        }
+    }
+
+    /** Streams the gzip data starting at a member header through one decoder. */
+    private static void pumpFrom(String path, long offset, ChunkSink out) throws IOException, InterruptedException {
+        FileInputStream in = new FileInputStream(path);
+        try {
+            in.getChannel().position(offset);
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+        pump(new GZIPInputStream(in, CHUNK_SIZE), out);
+    }
+
+    /**
+     * Inflates gzip members in parallel and writes them to the pipe in file
+     * order. Each member's end is found by scanning for the next header
+     * just before the member is submitted, so output starts after the first
+     * member instead of after a scan of the whole file. At most two members
+     * per worker are in flight, and members are submitted only while their
+     * trailers add up to less than MAX_BUFFERED_BYTES of inflated data. If
+     * a candidate turns out not to be a whole member (a header pattern
+     * inside compressed data), or a member is too large to buffer, nothing
+     * has been emitted from that point yet, so the rest of the file is
+     * streamed sequentially from there.
+     */
+    private static void inflateGzip(String path, ChunkSink out) throws IOException, InterruptedException {
+        MappedByteBuffer file;
+        try (FileChannel ch = FileChannel.open(Paths.get(path), StandardOpenOption.READ)) {
+            if (ch.size() > Integer.MAX_VALUE) {
+                pumpFrom(path, 0, out);
+                return;
+            }
+            file = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+        }
+        int size = file.capacity();
+        int threads = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+        ExecutorService pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "gunzip-member");
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            Deque<Member> inFlight = new ArrayDeque<>();
+            long buffered = 0;
+            int next = 0;
+            boolean scanning = true;
+            while (true) {
+                while (scanning && next < size && inFlight.size() < threads * 2
+                        && (inFlight.isEmpty() || buffered < MAX_BUFFERED_BYTES)) {
+                    int end = memberEnd(file, next);
+                    // ISIZE trailer: the inflated size if this really is one member
+                    long expected = end - next >= MIN_MEMBER ? readIntLE(file, end - 4) & 0xFFFFFFFFL : 0;
+                    if (end < 0 || expected > MAX_BUFFERED_BYTES) {
+                        scanning = false;
+                        break;
+                    }
+                    ByteBuffer slice = file.duplicate();
+                    slice.position(next).limit(end);
+                    ByteBuffer bytes = slice.slice();
+                    inFlight.add(new Member(next, expected, pool.submit(() -> inflateMember(bytes, expected))));
+                    buffered += expected;
+                    next = end;
+                }
+                Member m = inFlight.poll();
+                if (m == null) break;
+                byte[] data;
+                try {
+                    data = m.result.get();
+                } catch (ExecutionException e) {
+                    data = null;
+                }
+                if (data == null) {
+                    pumpFrom(path, m.start, out);
+                    return;
+                }
+                buffered -= m.expected;
+                for (int off = 0; off < data.length; off += CHUNK_SIZE) {
+                    out.put(Arrays.copyOfRange(data, off, Math.min(data.length, off + CHUNK_SIZE)));
+                }
+            }
+            if (next < size) {
+                // Member too large to buffer; streamed once everything before it is out
+                pumpFrom(path, next, out);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Finds where the member starting at an offset ends: at the next
+     * header pattern, or at the end of the file.
+     * @return end offset, or -1 if the member is larger than MAX_PARALLEL_MEMBER
+     */
+    private static int memberEnd(ByteBuffer file, int start) {
+        int size = file.capacity();
+        long limit = Math.min(size - 4L, start + MAX_PARALLEL_MEMBER);
+        for (int i = start + MIN_MEMBER; i <= limit; i++) {
+            if (file.get(i) == (byte) 0x1f && file.get(i + 1) == (byte) 0x8b
+                    && file.get(i + 2) == 8 && (file.get(i + 3) & 0xE0) == 0) {
+                return i;
+            }
+        }
+        return size - start <= MAX_PARALLEL_MEMBER ? size : -1;
+    }
+
+    /** Candidate member submitted for inflation. */
+    private static final class Member {
+        final int start;
+        final long expected;
+        final Future<byte[]> result;
+
+        Member(int start, long expected, Future<byte[]> result) {
+            this.start = start;
+            this.expected = expected;
+            this.result = result;
+        }
+    }
+
+    /**
+     * @param expected inflated size from the trailer; inflation stops as soon as it is exceeded
+     * @return decompressed member, or null if the bytes are not exactly one valid member
+     */
+    private static byte[] inflateMember(ByteBuffer member, long expected) throws DataFormatException {
+        int flags = member.get(3) & 0xFF;
+        int pos = 10;
+        if ((flags & 4) != 0) pos += 2 + ((member.get(pos) & 0xFF) | (member.get(pos + 1) & 0xFF) << 8);
+        if ((flags & 8) != 0) while (pos < member.limit() && member.get(pos++) != 0) { }
+        if ((flags & 16) != 0) while (pos < member.limit() && member.get(pos++) != 0) { }
+        if ((flags & 2) != 0) pos += 2;
+        if (pos + 8 > member.limit()) return null;
+
+        byte[] input = new byte[member.limit() - pos];
+        member.position(pos);
+        member.get(input);
+
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(input);
+            ByteArrayOutputStream data = new ByteArrayOutputStream((int) Math.min(expected, input.length * 4L));
+            byte[] buf = new byte[CHUNK_SIZE];
+            while (!inflater.finished()) {
+                int n = inflater.inflate(buf);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) return null;
+                data.write(buf, 0, n);
+                if (data.size() > expected) return null;
+            }
+            // Exactly the 8-byte trailer must remain: CRC32 and ISIZE, little-endian
+            if (inflater.getRemaining() != 8) return null;
+            int t = input.length - 8;
+            long crc = readIntLE(input, t) & 0xFFFFFFFFL;
+            long isize = readIntLE(input, t + 4) & 0xFFFFFFFFL;
+            byte[] result = data.toByteArray();
+            CRC32 check = new CRC32();
+            check.update(result);
+            if (check.getValue() != crc || (result.length & 0xFFFFFFFFL) != isize) return null;
+            return result;
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static int readIntLE(byte[] b, int off) {
+        return (b[off] & 0xFF) | (b[off + 1] & 0xFF) << 8 | (b[off + 2] & 0xFF) << 16 | (b[off + 3] & 0xFF) << 24;
+    }
+
+    private static int readIntLE(ByteBuffer b, int off) {
+        return (b.get(off) & 0xFF) | (b.get(off + 1) & 0xFF) << 8 | (b.get(off + 2) & 0xFF) << 16 | (b.get(off + 3) & 0xFF) << 24;
+    }
+
+    /** Receives chunks produced by a decompression thread. */
+    private interface ChunkSink {
+        void put(byte[] chunk) throws InterruptedException;
+    }
+
+    /** Producer body run on the decompression thread. */
+    private interface Producer {
+        void run(ChunkSink out) throws Exception;
+    }
+
+    /**
+     * InputStream fed by a background producer through a bounded queue.
+     * The producer blocks when the reader falls behind; errors surface as
+     * IOException on the reading side.
+     */
+    private static class PipedChunks extends InputStream {
+
+        private static final byte[] END = new byte[0];
+
+        private final BlockingQueue<byte[]> queue = new ArrayBlockingQueue<>(QUEUE_CHUNKS);
+        private final Thread producer;
+        private volatile Throwable failure;
+        private byte[] current = new byte[0];
+        private int pos;
+        private boolean done;
+
+        PipedChunks(String name, Producer body) {
+            producer = new Thread(() -> {
+                try {
+                    body.run(queue::put);
+                } catch (InterruptedException e) {
+                    return;
+                } catch (Throwable t) {
+                    failure = t;
+                }
+                try {
+                    queue.put(END);
+                } catch (InterruptedException e) {
+                    // Reader closed the stream
+                }
+            }, name);
+            producer.setDaemon(true);
+            producer.start();
+        }
+
+        private boolean fill() throws IOException {
+            if (done) return false;
+            while (pos >= current.length) {
+                try {
+                    current = queue.take();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while waiting for input");
+                }
+                pos = 0;
+                if (current == END) {
+                    done = true;
+                    if (failure != null) {
+                        throw failure instanceof IOException ? (IOException) failure
+                            : new IOException("Decompression failed", failure);
+                    }
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public int read() throws IOException {
+            return fill() ? current[pos++] & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) return 0;
+            if (!fill()) return -1;
+            int n = Math.min(len, current.length - pos);
+            System.arraycopy(current, pos, b, off, n);
+            pos += n;
+            return n;
+        }
+
+        @Override
+        public void close() {
+            done = true;
+            producer.interrupt();
+            queue.clear();
+        }
+    }
+}
@@ -0,0 +1,346 @@
+package util;
+
+import model.PassengerRecord;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Staged CSV ingest: a reader thread cuts the input into large blocks at
+ * line boundaries, parser workers turn blocks into record batches, and the
+ * calling thread (aggregator) hands the batches to a sink in file order.
+ * Stages are connected by bounded RingBuffers, so a slow stage holds back
+ * the ones in front of it instead of letting memory grow. Workers also
+ * wait before parsing a block more than a fixed window ahead of the next
+ * one due at the sink, so a stalled block cannot make parsed batches pile
+ * up behind it.
+ *
+ * @author IT221 Student
+ * @version 1.0
+ */
+public class IngestPipeline {
+
+    /** Target block size handed to a parser worker. */
+    public static final int BLOCK_SIZE = 1 << 20;
+
+    private static final Block END_OF_INPUT = new Block(-1, null, 0, 0, 0);
+
+    private final CSVReader reader;
+    private final int workers;
+    private final AtomicLong bytesRead = new AtomicLong();
+
+    /**
+     * @param reader CSV source; supplies the file and the line parser
+     * @param workers number of parser threads (at least 1)
+     */
+    public IngestPipeline(CSVReader reader, int workers) {
+        this.reader = reader;
+        this.workers = Math.max(1, workers);
+    }
+
+    /** @return default worker count: all cores but the reader's */
+    public static int defaultWorkers() {
+        return Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+    }
+
+    /** @return uncompressed bytes read so far by the current or last run */
+    public long getBytesRead() {
+        return bytesRead.get();
+    }
+
+    /**
+     * Runs the pipeline to completion.
+     * @param sink receives record batches in file order, on the calling thread
+     * @return per-stage timings
+     * @throws IOException if the file cannot be read
+     */
+    public IngestStats run(Consumer<List<PassengerRecord>> sink) throws IOException {
+        long start = System.nanoTime();
+        bytesRead.set(0);
+        RingBuffer<Block> blocks = new RingBuffer<>(workers * 2);
+        RingBuffer<Batch> batches = new RingBuffer<>(workers * 2);
+        AtomicLong readerBusy = new AtomicLong();
+        AtomicLong parserBusy = new AtomicLong();
+        AtomicLong blockCount = new AtomicLong();
+        AtomicLong filteredRows = new AtomicLong();
+        Throwable[] failure = new Throwable[1];
+        // Reorder window: blocks from emitted[0] to emitted[0] + window - 1 may be parsed
+        int window = workers * 2;
+        long[] emitted = new long[1];
+        Object gate = new Object();
+
+        List<Thread> threads = new ArrayList<>();
+        Thread readerThread = new Thread(() -> {
+            try (InputStream in = CompressedInput.open(reader.getFilePath())) {
+                readBlocks(in, blocks, readerBusy, blockCount);
+            } catch (Throwable t) {
+                fail(failure, gate, t);
+            } finally {
+                try {
+                    for (int i = 0; i < workers; i++) blocks.put(END_OF_INPUT);
+                } catch (InterruptedException e) {
+                    // Pipeline aborted
+                }
+            }
+        }, "ingest-reader");
+        threads.add(readerThread);
+
+        for (int w = 0; w < workers; w++) {
+            threads.add(new Thread(() -> {
+                try {
+                    Block block;
+                    while ((block = blocks.take()) != END_OF_INPUT) {
+                        synchronized (gate) {
+                            // After a failure the missing block never arrives; stop waiting for it
+                            while (block.sequence >= emitted[0] + window && !failed(failure)) {
+                                gate.wait();
+                            }
+                        }
+                        long t0 = System.nanoTime();
+                        List<PassengerRecord> parsed = parseBlock(block, filteredRows);
+                        parserBusy.addAndGet(System.nanoTime() - t0);
+                        batches.put(new Batch(block.sequence, parsed));
+                    }
+                } catch (InterruptedException e) {
+                    return;
+                } catch (Throwable t) {
+                    fail(failure, gate, t);
+                }
+                try {
+                    batches.put(Batch.WORKER_DONE);
+                } catch (InterruptedException e) {
+                    // Pipeline aborted
+                }
+            }, "ingest-parser-" + w));
+        }
+
+        for (Thread t : threads) {
+            t.setDaemon(true);
+            t.start();
+        }
+
+        long aggregatorBusy = 0;
+        long records = 0;
+        try {
+            // Reorder batches by block sequence so the sink sees file order;
+            // the gate keeps every parsed sequence inside the window
+            Batch[] pending = new Batch[window];
+            long nextSequence = 0;
+            int done = 0;
+            while (done < workers) {
+                Batch batch = batches.take();
+                long t0 = System.nanoTime();
+                if (batch == Batch.WORKER_DONE) {
+                    done++;
+                } else if (!failed(failure)) {
+                    pending[(int) (batch.sequence % window)] = batch;
+                    int slot;
+                    while (pending[slot = (int) (nextSequence % window)] != null) {
+                        List<PassengerRecord> ready = pending[slot].records;
+                        pending[slot] = null;
+                        sink.accept(ready);
+                        records += ready.size();
+                        nextSequence++;
+                    }
+                    synchronized (gate) {
+                        emitted[0] = nextSequence;
+                        gate.notifyAll();
+                    }
+                }
+                aggregatorBusy += System.nanoTime() - t0;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Ingest interrupted", e);
+        } finally {
+            for (Thread t : threads) t.interrupt();
+        }
+
+        synchronized (failure) {
+            if (failure[0] instanceof IOException) throw (IOException) failure[0];
+            if (failure[0] != null) throw new IOException("Ingest failed", failure[0]);
+        }
+        return new IngestStats(System.nanoTime() - start, readerBusy.get(), parserBusy.get(), workers,
+            aggregatorBusy, bytesRead.get(), blockCount.get(), records, filteredRows.get());
+    }
+
+    private static void fail(Throwable[] failure, Object gate, Throwable t) {
+        synchronized (failure) {
+            if (failure[0] == null) failure[0] = t;
+        }
+        synchronized (gate) {
+            gate.notifyAll();
+        }
+    }
+
+    private static boolean failed(Throwable[] failure) {
+        synchronized (failure) {
+            return failure[0] != null;
+        }
+    }
+
+    /** Reader stage: fills blocks and cuts each one after its last newline. */
+    private void readBlocks(InputStream in, RingBuffer<Block> blocks, AtomicLong busy, AtomicLong count)
+            throws IOException, InterruptedException {
+        byte[] buf = new byte[BLOCK_SIZE];
+        int len = 0;
+        long sequence = 0;
+        long nextLine = 1;
+        boolean headerDone = false;
+        boolean eof = false;
+
+        while (!eof) {
+            long t0 = System.nanoTime();
+            while (len < buf.length) {
+                int n = in.read(buf, len, buf.length - len);
+                if (n < 0) {
+                    eof = true;
+                    break;
+                }
+                len += n;
+                bytesRead.addAndGet(n);
+            }
+            int start = 0;
+            if (!headerDone) {
+                if (eof && len == 0) {
+                    // Empty file: no header line, so no records
+                    busy.addAndGet(System.nanoTime() - t0);
+                    return;
+                }
+                int nl = indexOf(buf, 0, len, (byte) '\n');
+                if (nl < 0 && !eof) {
+                    buf = Arrays.copyOf(buf, buf.length * 2);
+                    busy.addAndGet(System.nanoTime() - t0);
+                    continue;
+                }
+                int headerEnd = nl < 0 ? len : nl;
+                reader.setHeaders(new String(buf, 0, stripCr(buf, 0, headerEnd), StandardCharsets.UTF_8).split(","));
+                headerDone = true;
+                start = nl < 0 ? len : nl + 1;
+            }
+
+            int cut = eof ? len : lastIndexOf(buf, start, len, (byte) '\n') + 1;
+            if (cut <= start && !eof) {
+                // One line longer than the buffer: grow and keep reading
+                byte[] grown = new byte[buf.length * 2];
+                System.arraycopy(buf, start, grown, 0, len - start);
+                len -= start;
+                buf = grown;
+                busy.addAndGet(System.nanoTime() - t0);
+                continue;
+            }
+            byte[] next = new byte[Math.max(BLOCK_SIZE, len - cut)];
+            System.arraycopy(buf, cut, next, 0, len - cut);
+            Block block = null;
+            if (cut > start) {
+                block = new Block(sequence++, buf, start, cut, nextLine);
+                nextLine += countLines(buf, start, cut);
+            }
+            len -= cut;
+            buf = next;
+            busy.addAndGet(System.nanoTime() - t0);
+
+            if (block != null) {
+                blocks.put(block);
+                count.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Parser stage: splits a block into lines and parses each one.
+     * Rows rejected by the reader's RowFilter are only counted.
+     */
+    private List<PassengerRecord> parseBlock(Block block, AtomicLong filtered) {
+        List<PassengerRecord> out = new ArrayList<>(8192);
+        RowParser parser = reader.getParser();
+        boolean filtering = parser.filters();
+        long skipped = 0;
+        byte[] data = block.data;
+        long lineNumber = block.firstLine;
+        int pos = block.start;
+        while (pos < block.end) {
+            int nl = indexOf(data, pos, block.end, (byte) '\n');
+            int lineEnd = nl < 0 ? block.end : nl;
+            int rowEnd = stripCr(data, pos, lineEnd);
+            if (filtering && !parser.accepts(data, pos, rowEnd)) {
+                skipped++;
+                lineNumber++;
+                pos = lineEnd + 1;
+                continue;
+            }
+            try {
+                PassengerRecord r = parser.parse(data, pos, rowEnd, lineNumber);
+                if (r != null) out.add(r);
+            } catch (Exception e) {
+                System.out.println("Skipping line " + lineNumber + ": " + e.getMessage());
+            }
+            lineNumber++;
+            pos = lineEnd + 1;
+        }
+        if (skipped > 0) filtered.addAndGet(skipped);
+        return out;
+    }
+
+    private static int stripCr(byte[] b, int start, int end) {
+        return end > start && b[end - 1] == '\r' ? end - 1 : end;
+    }
+
+    private static int indexOf(byte[] b, int from, int to, byte v) {
+        for (int i = from; i < to; i++) {
+            if (b[i] == v) return i;
+        }
+        return -1;
+    }
+
+    private static int lastIndexOf(byte[] b, int from, int to, byte v) {
+        for (int i = to - 1; i >= from; i--) {
+            if (b[i] == v) return i;
+        }
+        return from - 1;
+    }
+
+    private static long countLines(byte[] b, int from, int to) {
+        long n = 0;
+        for (int i = from; i < to; i++) {
+            if (b[i] == '\n') n++;
+        }
+        // A final line without a newline still counts
+        return to > from && b[to - 1] != '\n' ? n + 1 : n;
+    }
+
+    /** Slice of input holding whole lines. */
+    private static class Block {
+        final long sequence;
+        final byte[] data;
+        final int start;
+        final int end;
+        final long firstLine;
+
+        Block(long sequence, byte[] data, int start, int end, long firstLine) {
+            this.sequence = sequence;
+            this.data = data;
+            this.start = start;
+            this.end = end;
+            this.firstLine = firstLine;
+        }
+    }
+
+    /** Parsed records of one block. */
+    private static class Batch {
+        static final Batch WORKER_DONE = new Batch(-1, null);
+
+        final long sequence;
+        final List<PassengerRecord> records;
+
+        Batch(long sequence, List<PassengerRecord> records) {
+            this.sequence = sequence;
+            this.records = records;
+        }
+    }
+}
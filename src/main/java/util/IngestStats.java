@@ -0,0 +1,73 @@
+package util;
+
+/**
+ * Timing of one IngestPipeline run. Utilization is the share of wall time
+ * a stage spent working rather than waiting on its ring buffers; the stage
+ * closest to 100% is the bottleneck.
+ *
+ * @author IT221 Student
+ * @version 1.0
+ */
+public class IngestStats {
+
+    private final long wallNanos;
+    private final long readerBusyNanos;
+    private final long parserBusyNanos;
+    private final int parserThreads;
+    private final long aggregatorBusyNanos;
+    private final long bytes;
+    private final long blocks;
+    private final long records;
+    private final long filteredRows;
+
+    IngestStats(long wallNanos, long readerBusyNanos, long parserBusyNanos, int parserThreads,
+                long aggregatorBusyNanos, long bytes, long blocks, long records, long filteredRows) {
+        this.wallNanos = wallNanos;
+        this.readerBusyNanos = readerBusyNanos;
+        this.parserBusyNanos = parserBusyNanos;
+        this.parserThreads = parserThreads;
+        this.aggregatorBusyNanos = aggregatorBusyNanos;
+        this.bytes = bytes;
+        this.blocks = blocks;
+        this.records = records;
+        this.filteredRows = filteredRows;
+    }
+
+    public long getWallNanos() { return wallNanos; }
+    public long getBytes() { return bytes; }
+    public long getBlocks() { return blocks; }
+    public long getRecords() { return records; }
+    /** @return rows skipped by the reader's RowFilter without being parsed */
+    public long getFilteredRows() { return filteredRows; }
+    public int getParserThreads() { return parserThreads; }
+
+    /** @return reader busy share of wall time (0-1) */
+    public double getReaderUtilization() { return share(readerBusyNanos, 1); }
+
+    /** @return average parser worker busy share of wall time (0-1) */
+    public double getParserUtilization() { return share(parserBusyNanos, parserThreads); }
+
+    /** @return aggregator busy share of wall time (0-1) */
+    public double getAggregatorUtilization() { return share(aggregatorBusyNanos, 1); }
+
+    /** @return name of the busiest stage */
+    public String getBottleneck() {
+        double r = getReaderUtilization(), p = getParserUtilization(), a = getAggregatorUtilization();
+        if (r >= p && r >= a) return "reader";
+        return p >= a ? "parser" : "aggregator";
+    }
+
+    private double share(long busy, int threads) {
+        return wallNanos > 0 ? (double) busy / ((double) wallNanos * threads) : 0;
+    }
+
+    @Override
+    public String toString() {
+        double secs = wallNanos / 1e9;
+        return String.format("%d records (%d filtered out), %.1f MB in %.3f s (%.0f rows/s); "
+                + "utilization reader %.0f%%, parsers(%d) %.0f%%, aggregator %.0f%%; bottleneck: %s",
+            records, filteredRows, bytes / 1e6, secs, secs > 0 ? (records + filteredRows) / secs : 0,
+            getReaderUtilization() * 100, parserThreads, getParserUtilization() * 100,
+            getAggregatorUtilization() * 100, getBottleneck());
+    }
+}
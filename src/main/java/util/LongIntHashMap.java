@@ -0,0 +1,117 @@
+package util;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash map from long keys to int values, stored in two
+ * primitive arrays (no boxing, no entry objects). Linear probing over a
+ * power-of-two table kept at most half full. Key 0 is reserved as the
+ * empty-slot marker.
+ *
+ * @author IT221 Student
+ * @version 1.0
+ */
+public class LongIntHashMap {
+
+    /** Returned by get() and put() when the key is absent. */
+    public static final int MISSING = -1;
+
+    private long[] keys;
+    private int[] values;
+    private int mask;
+    private int size;
+
+    /** Creates an empty map. */
+    public LongIntHashMap() {
+        this(16);
+    }
+
+    /** @param expected number of keys to hold without resizing */
+    public LongIntHashMap(int expected) {
+        int capacity = Integer.highestOneBit(Math.max(4, expected) * 2 - 1) << 1;
+        keys = new long[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+    }
+
+    /**
+     * @param key non-zero key
+     * @return value for the key, or MISSING
+     */
+    public int get(long key) {
+        for (int i = slot(key); ; i = (i + 1) & mask) {
+            if (keys[i] == key) return values[i];
+            if (keys[i] == 0) return MISSING;
+        }
+    }
+
+    /** @return true if the key is present */
+    public boolean containsKey(long key) {
+        return get(key) != MISSING;
+    }
+
+    /**
+     * Associates a value with a key.
+     * @param key non-zero key
+     * @param value value to store
+     * @return previous value, or MISSING
+     */
+    public int put(long key, int value) {
+        if (key == 0) {
+            throw new IllegalArgumentException("Key 0 is reserved");
+        }
+        int i = slot(key);
+        while (keys[i] != 0) {
+            if (keys[i] == key) {
+                int old = values[i];
+                values[i] = value;
+                return old;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        values[i] = value;
+        if (++size * 2 > keys.length) grow();
+        return MISSING;
+    }
+
+    /** @return number of keys */
+    public int size() {
+        return size;
+    }
+
+    /** Removes all keys, keeping the table. */
+    public void clear() {
+        Arrays.fill(keys, 0);
+        size = 0;
+    }
+
+    private int slot(long key) {
+        // MurmurHash3 finalizer spreads sequential IDs across the table
+        long h = key;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return (int) h & mask;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        values = new int[oldValues.length * 2];
+        mask = keys.length - 1;
+        for (int j = 0; j < oldKeys.length; j++) {
+            long key = oldKeys[j];
+            if (key == 0) continue;
+            int i = slot(key);
+            while (keys[i] != 0) {
+                i = (i + 1) & mask;
+            }
+            keys[i] = key;
+            values[i] = oldValues[j];
+        }
+    }
+}
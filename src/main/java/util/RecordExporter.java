@@ -0,0 +1,298 @@
+package util;
+
+import model.PassengerRecord;
+import model.RecordField;
+import model.RowLayout;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+
+/**
+ * Streams records to CSV, JSON Lines or the compact binary format
+ * (see BinaryRecordFile). Records are encoded straight into a direct
+ * buffer that is flushed to a FileChannel, so nothing is collected in
+ * memory and numbers are written digit by digit without formatting.
+ *
+ * @author IT221 Student
+ * @version 1.0
+ */
+public final class RecordExporter {
+
+    /** Output formats. */
+    public enum Format {
+        CSV, JSONL, BINARY;
+
+        /** @return format matching the file extension (.csv, .jsonl/.json, .bin) */
+        public static Format fromFileName(String name) {
+            String lower = name.toLowerCase(Locale.ROOT);
+            if (lower.endsWith(".jsonl") || lower.endsWith(".json")) return JSONL;
+            if (lower.endsWith(".bin")) return BINARY;
+            if (lower.endsWith(".csv")) return CSV;
+            throw new IllegalArgumentException("Unknown export format: " + name);
+        }
+    }
+
+    private static final int BUFFER_SIZE = 1 << 20;
+    private static final RecordField[] FIELDS = RecordField.values();
+    private static final byte[][] JSON_KEYS = new byte[FIELDS.length][];
+
+    static {
+        for (int i = 0; i < FIELDS.length; i++) {
+            String getter = FIELDS[i].getGetterName().substring(3);
+            String key = Character.toLowerCase(getter.charAt(0)) + getter.substring(1);
+            JSON_KEYS[i] = ((i == 0 ? "{\"" : ",\"") + key + "\":").getBytes(StandardCharsets.US_ASCII);
+        }
+    }
+
+    private RecordExporter() {}
+
+    /**
+     * Writes records to a file, replacing it if it exists.
+     * @param records records to write, e.g. a filter view
+     * @param path output file
+     * @param format output format
+     * @return number of records written
+     * @throws IOException if the file cannot be written
+     * @throws IllegalArgumentException in BINARY format, for a record that does not fit RowLayout
+     */
+    public static long export(Iterable<PassengerRecord> records, Path path, Format format) throws IOException {
+        try (Output out = new Output(FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING))) {
+            long count = 0;
+            if (format == Format.CSV) {
+                for (int i = 0; i < FIELDS.length; i++) {
+                    if (i > 0) out.put((byte) ',');
+                    out.text(FIELDS[i].getHeader(), true);
+                }
+                out.put((byte) '\n');
+                for (PassengerRecord r : records) {
+                    writeCsv(out, r);
+                    count++;
+                }
+            } else if (format == Format.JSONL) {
+                for (PassengerRecord r : records) {
+                    writeJson(out, r);
+                    count++;
+                }
+            } else {
+                out.buf.order(BinaryRecordFile.ORDER);
+                out.ensure(BinaryRecordFile.HEADER_SIZE);
+                BinaryRecordFile.putHeader(out.buf);
+                for (PassengerRecord r : records) {
+                    out.ensure(RowLayout.ROW_SIZE);
+                    RowLayout.write(out.buf, out.buf.position(), r);
+                    out.buf.position(out.buf.position() + RowLayout.ROW_SIZE);
+                    count++;
+                }
+            }
+            return count;
+        }
+    }
+
+    private static void writeCsv(Output out, PassengerRecord r) throws IOException {
+        out.text(r.getId(), true);
+        out.put((byte) ',');
+        out.text(r.getGender(), true);
+        out.put((byte) ',');
+        out.text(r.getCustomerType(), true);
+        out.put((byte) ',');
+        out.number(r.getAge());
+        out.put((byte) ',');
+        out.text(r.getTypeOfTravel(), true);
+        out.put((byte) ',');
+        out.text(r.getTravelClass(), true);
+        out.put((byte) ',');
+        out.number(r.getFlightDistance());
+        for (int i = 0; i < PassengerRecord.SERVICE_COUNT; i++) {
+            out.put((byte) ',');
+            out.number(r.getServiceRating(i));
+        }
+        out.put((byte) ',');
+        out.decimal(r.getDepartureDelayInMinutes(), false);
+        out.put((byte) ',');
+        out.decimal(r.getArrivalDelayInMinutes(), false);
+        out.put((byte) ',');
+        out.text(r.getSatisfaction(), true);
+        out.put((byte) ',');
+        out.text(r.getDate(), true);
+        out.put((byte) '\n');
+    }
+
+    private static void writeJson(Output out, PassengerRecord r) throws IOException {
+        int f = 0;
+        out.raw(JSON_KEYS[f++]);
+        out.json(r.getId());
+        out.raw(JSON_KEYS[f++]);
+        out.json(r.getGender());
+        out.raw(JSON_KEYS[f++]);
+        out.json(r.getCustomerType());
+        out.raw(JSON_KEYS[f++]);
+        out.number(r.getAge());
+        out.raw(JSON_KEYS[f++]);
+        out.json(r.getTypeOfTravel());
+        out.raw(JSON_KEYS[f++]);
+        out.json(r.getTravelClass());
+        out.raw(JSON_KEYS[f++]);
+        out.number(r.getFlightDistance());
+        for (int i = 0; i < PassengerRecord.SERVICE_COUNT; i++) {
+            out.raw(JSON_KEYS[f++]);
+            out.number(r.getServiceRating(i));
+        }
+        out.raw(JSON_KEYS[f++]);
+        out.decimal(r.getDepartureDelayInMinutes(), true);
+        out.raw(JSON_KEYS[f++]);
+        out.decimal(r.getArrivalDelayInMinutes(), true);
+        out.raw(JSON_KEYS[f++]);
+        out.json(r.getSatisfaction());
+        out.raw(JSON_KEYS[f]);
+        out.json(r.getDate());
+        out.put((byte) '}');
+        out.put((byte) '\n');
+    }
+
+    /** Buffered channel writer with allocation-free number and text encoding. */
+    private static class Output implements AutoCloseable {
+
+        private static final long MAX_EXACT = 1L << 53;
+        private static final byte[] POINT_ZERO = {'.', '0'};
+        private static final byte[] NULL = {'n', 'u', 'l', 'l'};
+        private static final byte[] CONTROL_ESCAPE = {'\\', 'u', '0', '0'};
+        private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+        final FileChannel channel;
+        final ByteBuffer buf = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        private final byte[] digits = new byte[20];
+
+        Output(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        void ensure(int bytes) throws IOException {
+            if (buf.remaining() < bytes) flush();
+        }
+
+        void put(byte b) throws IOException {
+            if (!buf.hasRemaining()) flush();
+            buf.put(b);
+        }
+
+        void raw(byte[] bytes) throws IOException {
+            ensure(bytes.length);
+            buf.put(bytes);
+        }
+
+        void number(long v) throws IOException {
+            ensure(20);
+            if (v < 0) {
+                buf.put((byte) '-');
+                if (v == Long.MIN_VALUE) {
+                    raw("9223372036854775808".getBytes(StandardCharsets.US_ASCII));
+                    return;
+                }
+                v = -v;
+            }
+            int n = 0;
+            do {
+                digits[n++] = (byte) ('0' + v % 10);
+                v /= 10;
+            } while (v != 0);
+            while (n > 0) {
+                buf.put(digits[--n]);
+            }
+        }
+
+        /**
+         * Whole numbers as digits plus ".0"; other values fall back to
+         * Double.toString. Non-finite values are null in JSON.
+         */
+        void decimal(double v, boolean json) throws IOException {
+            if (v == Math.rint(v) && Math.abs(v) < MAX_EXACT && !(v == 0 && 1 / v < 0)) {
+                number((long) v);
+                raw(POINT_ZERO);
+            } else if (json && (Double.isNaN(v) || Double.isInfinite(v))) {
+                raw(NULL);
+            } else {
+                text(Double.toString(v), false);
+            }
+        }
+
+        /** Writes text, quoting for CSV when it contains a separator or quote. */
+        void text(String s, boolean csvQuote) throws IOException {
+            if (s == null) return;
+            boolean quote = csvQuote && (s.indexOf(',') >= 0 || s.indexOf('"') >= 0 || s.indexOf('\n') >= 0);
+            if (quote) put((byte) '"');
+            for (int i = 0; i < s.length(); ) {
+                int c = s.codePointAt(i);
+                if (quote && c == '"') put((byte) '"');
+                putCodePoint(c);
+                i += Character.charCount(c);
+            }
+            if (quote) put((byte) '"');
+        }
+
+        /** Writes a JSON string literal, or null. */
+        void json(String s) throws IOException {
+            if (s == null) {
+                raw(NULL);
+                return;
+            }
+            put((byte) '"');
+            for (int i = 0; i < s.length(); ) {
+                int c = s.codePointAt(i);
+                if (c == '"' || c == '\\') {
+                    put((byte) '\\');
+                    put((byte) c);
+                } else if (c < 0x20) {
+                    raw(CONTROL_ESCAPE);
+                    put(HEX[c >> 4]);
+                    put(HEX[c & 0xF]);
+                } else {
+                    putCodePoint(c);
+                }
+                i += Character.charCount(c);
+            }
+            put((byte) '"');
+        }
+
+        /** Encodes one code point as UTF-8. */
+        private void putCodePoint(int c) throws IOException {
+            ensure(4);
+            if (c < 0x80) {
+                buf.put((byte) c);
+            } else if (c < 0x800) {
+                buf.put((byte) (0xC0 | c >> 6));
+                buf.put((byte) (0x80 | (c & 0x3F)));
+            } else if (c < 0x10000) {
+                buf.put((byte) (0xE0 | c >> 12));
+                buf.put((byte) (0x80 | (c >> 6 & 0x3F)));
+                buf.put((byte) (0x80 | (c & 0x3F)));
+            } else {
+                buf.put((byte) (0xF0 | c >> 18));
+                buf.put((byte) (0x80 | (c >> 12 & 0x3F)));
+                buf.put((byte) (0x80 | (c >> 6 & 0x3F)));
+                buf.put((byte) (0x80 | (c & 0x3F)));
+            }
+        }
+
+        void flush() throws IOException {
+            buf.flip();
+            while (buf.hasRemaining()) {
+                channel.write(buf);
+            }
+            buf.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                flush();
+            } finally {
+                channel.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Bounded lock-free multi-producer/multi-consumer queue (Vyukov's array
+ * queue). Each slot carries a sequence number telling producers and
+ * consumers whose turn it is, so offer/poll need one CAS and no locks.
+ * put/take spin briefly, then park, when the buffer is full or empty.
+ *
+ * @author IT221 Student
+ * @version 1.0
+ */
+public class RingBuffer<T> {
+
+    private static final int SPINS = 100;
+    private static final long PARK_NANOS = 20_000;
+
+    private final int mask;
+    private final AtomicReferenceArray<T> items;
+    private final AtomicLongArray sequence;
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+
+    /** @param capacity slot count, rounded up to a power of two */
+    public RingBuffer(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        mask = size - 1;
+        items = new AtomicReferenceArray<>(size);
+        sequence = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequence.set(i, i);
+        }
+    }
+
+    /** @return true if added, false if the buffer is full */
+    public boolean offer(T item) {
+        long pos = tail.get();
+        while (true) {
+            int idx = (int) (pos & mask);
+            long diff = sequence.get(idx) - pos;
+            if (diff == 0) {
+                if (tail.compareAndSet(pos, pos + 1)) {
+                    items.lazySet(idx, item);
+                    sequence.set(idx, pos + 1);
+                    return true;
+                }
+                pos = tail.get();
+            } else if (diff < 0) {
+                return false;
+            } else {
+                pos = tail.get();
+            }
+        }
+    }
+
+    /** @return oldest item, or null if the buffer is empty */
+    public T poll() {
+        long pos = head.get();
+        while (true) {
+            int idx = (int) (pos & mask);
+            long diff = sequence.get(idx) - (pos + 1);
+            if (diff == 0) {
+                if (head.compareAndSet(pos, pos + 1)) {
+                    T item = items.get(idx);
+                    items.lazySet(idx, null);
+                    sequence.set(idx, pos + mask + 1);
+                    return item;
+                }
+                pos = head.get();
+            } else if (diff < 0) {
+                return null;
+            } else {
+                pos = head.get();
+            }
+        }
+    }
+
+    /** Adds an item, waiting while the buffer is full (backpressure). */
+    public void put(T item) throws InterruptedException {
+        int spins = 0;
+        while (!offer(item)) {
+            spins = backOff(spins);
+        }
+    }
+
+    /** @return oldest item, waiting while the buffer is empty */
+    public T take() throws InterruptedException {
+        int spins = 0;
+        T item;
+        while ((item = poll()) == null) {
+            spins = backOff(spins);
+        }
+        return item;
+    }
+
+    /** @return approximate number of queued items */
+    public int size() {
+        return (int) Math.max(0, tail.get() - head.get());
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+
+    private static int backOff(int spins) throws InterruptedException {
+        if (spins < SPINS) {
+            Thread.onSpinWait();
+        } else {
+            LockSupport.parkNanos(PARK_NANOS);
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+        return spins + 1;
+    }
+}
@@ -0,0 +1,202 @@
+package util;
+
+import model.PassengerRecord;
+import model.RecordField;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Row filter that CSVReader checks against the raw bytes of a row before
+ * parsing it. A filter is an AND of per-field tests (one of several
+ * strings, ignoring case; or a numeric range). Rows that fail are skipped
+ * as soon as the deciding column has been read, without creating any
+ * objects.
+ * <pre>
+ * new CSVReader(path).where(RowFilter.equalsIgnoreCase(RecordField.TRAVEL_CLASS, "Business")
+ *     .and(RowFilter.between(RecordField.AGE, 30, 40))).readAllRecords();
+ * </pre>
+ *
+ * @author IT221 Student
+ * @version 1.0
+ */
+public final class RowFilter {
+
+    private final List<Clause> clauses;
+
+    private RowFilter(List<Clause> clauses) {
+        this.clauses = clauses;
+    }
+
+    /** @return filter that accepts every row */
+    public static RowFilter all() {
+        return new RowFilter(Collections.emptyList());
+    }
+
+    /**
+     * @param field string field
+     * @param values accepted values, compared ignoring case after trimming
+     * @return filter on one field
+     */
+    public static RowFilter equalsIgnoreCase(RecordField field, String... values) {
+        if (field.isNumeric()) {
+            throw new IllegalArgumentException(field + " is numeric; use between()");
+        }
+        return new RowFilter(Collections.singletonList(new Clause(field, values, 0, 0)));
+    }
+
+    /**
+     * @param field numeric field
+     * @param min lowest accepted value
+     * @param max highest accepted value
+     * @return filter on one field
+     */
+    public static RowFilter between(RecordField field, double min, double max) {
+        if (!field.isNumeric()) {
+            throw new IllegalArgumentException(field + " is not numeric; use equalsIgnoreCase()");
+        }
+        return new RowFilter(Collections.singletonList(new Clause(field, null, min, max)));
+    }
+
+    /** @return filter accepting rows accepted by both */
+    public RowFilter and(RowFilter other) {
+        List<Clause> both = new ArrayList<>(clauses);
+        both.addAll(other.clauses);
+        return new RowFilter(both);
+    }
+
+    /** @return fields the filter reads */
+    public Set<RecordField> getFields() {
+        Set<RecordField> fields = EnumSet.noneOf(RecordField.class);
+        for (Clause c : clauses) fields.add(c.field);
+        return fields;
+    }
+
+    /** @return true if the filter accepts every row */
+    public boolean isAll() {
+        return clauses.isEmpty();
+    }
+
+    /** @return per-field tests, for RowParser */
+    List<Clause> clauses() {
+        return clauses;
+    }
+
+    /**
+     * Applies the same tests to a parsed record, e.g. to filter records
+     * that were loaded without the filter.
+     */
+    public boolean test(PassengerRecord r) {
+        for (Clause c : clauses) {
+            if (!c.test(r)) return false;
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        if (clauses.isEmpty()) return "all rows";
+        StringBuilder sb = new StringBuilder();
+        for (Clause c : clauses) {
+            if (sb.length() > 0) sb.append(" AND ");
+            sb.append(c);
+        }
+        return sb.toString();
+    }
+
+    /** Test on one field's bytes. */
+    static final class Clause {
+        final RecordField field;
+        private final String[] values;
+        private final byte[][] lowerAscii;
+        private final double min;
+        private final double max;
+
+        Clause(RecordField field, String[] values, double min, double max) {
+            this.field = field;
+            this.values = values == null ? null : values.clone();
+            this.min = min;
+            this.max = max;
+            if (values == null) {
+                lowerAscii = null;
+            } else {
+                lowerAscii = new byte[values.length][];
+                for (int i = 0; i < values.length; i++) {
+                    String v = values[i].trim();
+                    // Non-ASCII values are compared as decoded strings
+                    lowerAscii[i] = isAscii(v) ? v.toLowerCase(Locale.ROOT).getBytes(StandardCharsets.US_ASCII) : null;
+                }
+            }
+        }
+
+        /** @param s start of the trimmed field, e end (exclusive) */
+        boolean test(byte[] b, int s, int e) {
+            if (values == null) {
+                double v = field.getType() == RecordField.Type.INT ? RowParser.integer(b, s, e) : RowParser.decimal(b, s, e);
+                return v >= min && v <= max;
+            }
+            for (int i = 0; i < values.length; i++) {
+                if (lowerAscii[i] != null ? equalsAsciiIgnoreCase(lowerAscii[i], b, s, e)
+                        : values[i].trim().equalsIgnoreCase(new String(b, s, e - s, StandardCharsets.UTF_8))) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        boolean test(PassengerRecord r) {
+            if (values == null) {
+                double v;
+                switch (field) {
+                    case AGE: v = r.getAge(); break;
+                    case FLIGHT_DISTANCE: v = r.getFlightDistance(); break;
+                    case DEPARTURE_DELAY: v = r.getDepartureDelayInMinutes(); break;
+                    case ARRIVAL_DELAY: v = r.getArrivalDelayInMinutes(); break;
+                    default: v = r.getServiceRating(field.ordinal() - RecordField.INFLIGHT_WIFI_SERVICE.ordinal());
+                }
+                return v >= min && v <= max;
+            }
+            String actual;
+            switch (field) {
+                case ID: actual = r.getId(); break;
+                case GENDER: actual = r.getGender(); break;
+                case CUSTOMER_TYPE: actual = r.getCustomerType(); break;
+                case TYPE_OF_TRAVEL: actual = r.getTypeOfTravel(); break;
+                case TRAVEL_CLASS: actual = r.getTravelClass(); break;
+                case SATISFACTION: actual = r.getSatisfaction(); break;
+                default: actual = r.getDate();
+            }
+            for (String v : values) {
+                if (v.trim().equalsIgnoreCase(actual)) return true;
+            }
+            return false;
+        }
+
+        private static boolean equalsAsciiIgnoreCase(byte[] lower, byte[] b, int s, int e) {
+            if (lower.length != e - s) return false;
+            for (int i = 0; i < lower.length; i++) {
+                int c = b[s + i];
+                if (c >= 'A' && c <= 'Z') c += 'a' - 'A';
+                if (c != lower[i]) return false;
+            }
+            return true;
+        }
+
+        private static boolean isAscii(String s) {
+            for (int i = 0; i < s.length(); i++) {
+                if (s.charAt(i) >= 0x80) return false;
+            }
+            return true;
+        }
+
+        @Override
+        public String toString() {
+            if (values == null) return field.getHeader() + " between " + min + " and " + max;
+            return field.getHeader() + (values.length == 1 ? " = " + values[0] : " in " + String.join(", ", values));
+        }
+    }
+}
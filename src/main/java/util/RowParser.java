@@ -0,0 +1,270 @@
+package util;
+
+import model.PassengerRecord;
+import model.RecordField;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Parses CSV rows straight from bytes into PassengerRecords. Columns are
+ * matched to fields by header name, so column order does not matter.
+ * Only projected fields are parsed; other columns are stepped over by
+ * looking for the next comma and the fields stay unset.
+ *
+ * With a RowFilter, accepts() tests the filtered columns' raw bytes first
+ * so rejected rows are never parsed.
+ *
+ * Numbers are read digit by digit, and categorical values that match a
+ * PassengerRecord dictionary entry reuse its String instead of allocating.
+ *
+ * @author IT221 Student
+ * @version 1.0
+ */
+final class RowParser {
+
+    private static final int FIRST_RATING = RecordField.INFLIGHT_WIFI_SERVICE.ordinal();
+    private static final double[] POW10 = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+    // Largest mantissa whose conversion to double is exact
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+    private static final byte[][] GENDERS = ascii(PassengerRecord.GENDERS);
+    private static final byte[][] CUSTOMER_TYPES = ascii(PassengerRecord.CUSTOMER_TYPES);
+    private static final byte[][] TRAVEL_TYPES = ascii(PassengerRecord.TRAVEL_TYPES);
+    private static final byte[][] TRAVEL_CLASSES = ascii(PassengerRecord.TRAVEL_CLASSES);
+    private static final byte[][] SATISFACTIONS = ascii(PassengerRecord.SATISFACTIONS);
+
+    // Field parsed from each column, or null to skip the column
+    private final RecordField[] columns;
+    // Filter tests per column (null if none) and the last column with tests
+    private final RowFilter.Clause[][] tests;
+    private final int lastTestColumn;
+
+    private RowParser(RecordField[] columns, RowFilter.Clause[][] tests, int lastTestColumn) {
+        this.columns = columns;
+        this.tests = tests;
+        this.lastTestColumn = lastTestColumn;
+    }
+
+    /**
+     * Resolves the header row.
+     * @param headers header names in file order
+     * @param projection fields to parse
+     * @param filter rows to keep
+     * @return parser for rows under this header
+     * @throws IOException if a projected or filtered field has no column
+     */
+    static RowParser forHeader(String[] headers, Set<RecordField> projection, RowFilter filter) throws IOException {
+        RecordField[] columns = new RecordField[headers.length];
+        int[] columnOf = new int[RecordField.values().length];
+        Arrays.fill(columnOf, -1);
+        for (int i = 0; i < headers.length; i++) {
+            // A UTF-8 byte order mark may precede the first header
+            String name = i == 0 && headers[i].startsWith("\uFEFF") ? headers[i].substring(1) : headers[i];
+            RecordField f = RecordField.fromHeader(name);
+            if (f != null && columnOf[f.ordinal()] < 0) {
+                columnOf[f.ordinal()] = i;
+                if (projection.contains(f)) columns[i] = f;
+            }
+        }
+        Set<RecordField> needed = EnumSet.noneOf(RecordField.class);
+        needed.addAll(projection);
+        needed.addAll(filter.getFields());
+        StringBuilder missing = new StringBuilder();
+        for (RecordField f : needed) {
+            if (columnOf[f.ordinal()] < 0) missing.append(missing.length() == 0 ? "" : ", ").append(f.getHeader());
+        }
+        if (missing.length() > 0) {
+            throw new IOException("Missing column(s) in header: " + missing);
+        }
+
+        RowFilter.Clause[][] tests = new RowFilter.Clause[headers.length][];
+        int lastTestColumn = -1;
+        for (RowFilter.Clause c : filter.clauses()) {
+            int col = columnOf[c.field.ordinal()];
+            RowFilter.Clause[] existing = tests[col];
+            tests[col] = existing == null ? new RowFilter.Clause[] {c} : append(existing, c);
+            lastTestColumn = Math.max(lastTestColumn, col);
+        }
+        return new RowParser(columns, tests, lastTestColumn);
+    }
+
+    private static RowFilter.Clause[] append(RowFilter.Clause[] a, RowFilter.Clause c) {
+        RowFilter.Clause[] out = Arrays.copyOf(a, a.length + 1);
+        out[a.length] = c;
+        return out;
+    }
+
+    /**
+     * Checks the filter on the raw row, reading only up to the last
+     * filtered column and allocating nothing.
+     * @return false if the row can be skipped
+     */
+    boolean accepts(byte[] b, int start, int end) {
+        int pos = start;
+        for (int col = 0; col <= lastTestColumn; col++) {
+            int fieldEnd = pos;
+            while (fieldEnd < end && b[fieldEnd] != ',') fieldEnd++;
+            RowFilter.Clause[] here = tests[col];
+            if (here != null) {
+                int s = pos;
+                int e = fieldEnd;
+                while (s < e && (b[s] & 0xFF) <= ' ') s++;
+                while (e > s && (b[e - 1] & 0xFF) <= ' ') e--;
+                for (RowFilter.Clause c : here) {
+                    if (!c.test(b, s, e)) return false;
+                }
+            }
+            // Short rows are left for parse() to reject
+            if (fieldEnd >= end) return true;
+            pos = fieldEnd + 1;
+        }
+        return true;
+    }
+
+    /** @return true if accepts() can reject rows */
+    boolean filters() {
+        return lastTestColumn >= 0;
+    }
+
+    /**
+     * Parses one row; the range excludes the line terminator.
+     * @return record, or null if the row has fewer fields than the header
+     * @throws RuntimeException "Parse error at line N" for values a field cannot hold
+     */
+    PassengerRecord parse(byte[] b, int start, int end, long lineNumber) {
+        PassengerRecord r = new PassengerRecord();
+        int col = 0;
+        int pos = start;
+        try {
+            while (true) {
+                int fieldEnd = pos;
+                while (fieldEnd < end && b[fieldEnd] != ',') fieldEnd++;
+                if (col < columns.length && columns[col] != null) {
+                    set(r, columns[col], b, pos, fieldEnd);
+                }
+                col++;
+                if (fieldEnd >= end) break;
+                pos = fieldEnd + 1;
+            }
+        } catch (RuntimeException e) {
+            throw new RuntimeException("Parse error at line " + lineNumber);
+        }
+        return col < columns.length ? null : r;
+    }
+
+    private static void set(PassengerRecord r, RecordField f, byte[] b, int s, int e) {
+        while (s < e && (b[s] & 0xFF) <= ' ') s++;
+        while (e > s && (b[e - 1] & 0xFF) <= ' ') e--;
+        switch (f) {
+            case ID: r.setId(text(b, s, e)); break;
+            case GENDER: r.setGender(category(PassengerRecord.GENDERS, GENDERS, b, s, e)); break;
+            case CUSTOMER_TYPE: r.setCustomerType(category(PassengerRecord.CUSTOMER_TYPES, CUSTOMER_TYPES, b, s, e)); break;
+            case AGE: r.setAge(integer(b, s, e)); break;
+            case TYPE_OF_TRAVEL: r.setTypeOfTravel(category(PassengerRecord.TRAVEL_TYPES, TRAVEL_TYPES, b, s, e)); break;
+            case TRAVEL_CLASS: r.setTravelClass(category(PassengerRecord.TRAVEL_CLASSES, TRAVEL_CLASSES, b, s, e)); break;
+            case FLIGHT_DISTANCE: r.setFlightDistance(integer(b, s, e)); break;
+            case DEPARTURE_DELAY: r.setDepartureDelayInMinutes(decimal(b, s, e)); break;
+            case ARRIVAL_DELAY: r.setArrivalDelayInMinutes(decimal(b, s, e)); break;
+            case SATISFACTION: r.setSatisfaction(category(PassengerRecord.SATISFACTIONS, SATISFACTIONS, b, s, e)); break;
+            case DATE: r.setDate(text(b, s, e)); break;
+            default: r.setServiceRating(f.ordinal() - FIRST_RATING, integer(b, s, e));
+        }
+    }
+
+    private static String text(byte[] b, int s, int e) {
+        return new String(b, s, e - s, StandardCharsets.UTF_8);
+    }
+
+    /** @return dictionary String equal to the bytes, or a new String */
+    static String category(String[] values, byte[][] encoded, byte[] b, int s, int e) {
+        for (int i = 0; i < encoded.length; i++) {
+            if (equals(encoded[i], b, s, e)) return values[i];
+        }
+        return text(b, s, e);
+    }
+
+    static boolean equals(byte[] value, byte[] b, int s, int e) {
+        if (value.length != e - s) return false;
+        for (int i = 0; i < value.length; i++) {
+            if (value[i] != b[s + i]) return false;
+        }
+        return true;
+    }
+
+    /** @return integer value, or 0 for empty or invalid text */
+    static int integer(byte[] b, int s, int e) {
+        if (s == e) return 0;
+        int i = s;
+        boolean negative = b[i] == '-';
+        if (negative || b[i] == '+') i++;
+        if (i == e || e - i > 9) return slowInteger(b, s, e);
+        int v = 0;
+        for (; i < e; i++) {
+            int d = b[i] - '0';
+            if (d < 0 || d > 9) return 0;
+            v = v * 10 + d;
+        }
+        return negative ? -v : v;
+    }
+
+    private static int slowInteger(byte[] b, int s, int e) {
+        try {
+            return Integer.parseInt(text(b, s, e));
+        } catch (NumberFormatException ex) {
+            return 0;
+        }
+    }
+
+    /**
+     * Plain decimals with up to 15 significant digits are converted with
+     * one exact division, which rounds the same as Double.parseDouble;
+     * anything else goes through Double.parseDouble.
+     * @return value, or 0.0 for empty or invalid text
+     */
+    static double decimal(byte[] b, int s, int e) {
+        if (s == e) return 0.0;
+        int i = s;
+        boolean negative = b[i] == '-';
+        if (negative || b[i] == '+') i++;
+        long mantissa = 0;
+        int digits = 0;
+        int fraction = -1;
+        for (; i < e; i++) {
+            byte c = b[i];
+            if (c == '.' && fraction < 0) {
+                fraction = 0;
+            } else if (c >= '0' && c <= '9') {
+                mantissa = mantissa * 10 + (c - '0');
+                if (++digits > 15) return slowDecimal(b, s, e);
+                if (fraction >= 0) fraction++;
+            } else {
+                return slowDecimal(b, s, e);
+            }
+        }
+        if (digits == 0 || mantissa >= MAX_EXACT_MANTISSA) return slowDecimal(b, s, e);
+        double v = fraction > 0 ? mantissa / POW10[fraction] : mantissa;
+        return negative ? -v : v;
+    }
+
+    private static double slowDecimal(byte[] b, int s, int e) {
+        try {
+            return Double.parseDouble(text(b, s, e));
+        } catch (NumberFormatException ex) {
+            return 0.0;
+        }
+    }
+
+    private static byte[][] ascii(String[] values) {
+        byte[][] out = new byte[values.length][];
+        for (int i = 0; i < values.length; i++) {
+            out[i] = values[i].getBytes(StandardCharsets.UTF_8);
+        }
+        return out;
+    }
+}
@@ -0,0 +1,79 @@
+package util;
+
+import java.time.LocalDate;
+
+/**
+ * Converts survey dates in the dataset's M/D/YYYY form to epoch days
+ * (days since 1970-01-01), so they can be compared as ints. Parsing is
+ * done by hand and never throws, since it runs once per record in scans.
+ *
+ * @author IT221 Student
+ * @version 1.0
+ */
+public final class SurveyDates {
+
+    /** Epoch day returned for a missing or malformed date. */
+    public static final int UNKNOWN = Integer.MIN_VALUE;
+
+    private static final int[] DAYS_IN_MONTH = {31, 29, 31, 30, 31, 30, 31, 31, 30, 31, 30, 31};
+
+    private SurveyDates() {}
+
+    /**
+     * @param date date as M/D/YYYY (leading zeros and surrounding spaces allowed)
+     * @return epoch day, or UNKNOWN if the text is not a valid date
+     */
+    public static int toEpochDay(CharSequence date) {
+        if (date == null) return UNKNOWN;
+        int len = date.length();
+        int i = 0;
+        while (i < len && date.charAt(i) == ' ') i++;
+        while (len > i && date.charAt(len - 1) == ' ') len--;
+
+        int month = 0, day = 0, year = 0;
+        for (int p = 0; p < 3; p++) {
+            int start = i;
+            int v = 0;
+            while (i < len && i - start < 4) {
+                char c = date.charAt(i);
+                if (c < '0' || c > '9') break;
+                v = v * 10 + (c - '0');
+                i++;
+            }
+            if (i == start) return UNKNOWN;
+            if (p == 0) month = v;
+            else if (p == 1) day = v;
+            else year = v;
+            if (p < 2) {
+                if (i >= len || date.charAt(i) != '/') return UNKNOWN;
+                i++;
+            }
+        }
+        if (i != len) return UNKNOWN;
+        return toEpochDay(year, month, day);
+    }
+
+    /** @return epoch day of a calendar date, or UNKNOWN if it does not exist */
+    public static int toEpochDay(int year, int month, int day) {
+        if (month < 1 || month > 12 || day < 1 || day > DAYS_IN_MONTH[month - 1]) return UNKNOWN;
+        if (month == 2 && day == 29 && !isLeapYear(year)) return UNKNOWN;
+        // Days from civil: years start in March so the leap day comes last
+        int y = month <= 2 ? year - 1 : year;
+        int era = Math.floorDiv(y, 400);
+        int yoe = y - era * 400;
+        int doy = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        int doe = yoe * 365 + yoe / 4 - yoe / 100 + doy;
+        return era * 146097 + doe - 719468;
+    }
+
+    /** @return epoch day formatted as M/D/YYYY, or null for UNKNOWN */
+    public static String format(int epochDay) {
+        if (epochDay == UNKNOWN) return null;
+        LocalDate d = LocalDate.ofEpochDay(epochDay);
+        return d.getMonthValue() + "/" + d.getDayOfMonth() + "/" + d.getYear();
+    }
+
+    private static boolean isLeapYear(int year) {
+        return (year % 4 == 0 && year % 100 != 0) || year % 400 == 0;
+    }
+}